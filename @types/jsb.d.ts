@@ -15,9 +15,13 @@ declare namespace jsb {
     type RotationRateAlpha = number;
     type RotationRateBeta = number;
     type RotationRateGamma = number;
+    type QuaternionXYZW = number;
+    type GravityXYZ = number;
     type DeviceMotionValue = [AccelerationXYZ, AccelerationXYZ, AccelerationXYZ,
         AccelerationIncludingGravityXYZ, AccelerationIncludingGravityXYZ, AccelerationIncludingGravityXYZ,
-        RotationRateAlpha, RotationRateBeta, RotationRateGamma];
+        RotationRateAlpha, RotationRateBeta, RotationRateGamma,
+        QuaternionXYZW, QuaternionXYZW, QuaternionXYZW, QuaternionXYZW,
+        GravityXYZ, GravityXYZ, GravityXYZ];
     export namespace device {
         export function getBatteryLevel(): number;
         export function getDevicePixelRatio(): number;
@@ -28,6 +32,22 @@ declare namespace jsb {
         export function setAccelerometerEnabled(isEnabled: boolean);
         export function setAccelerometerInterval(intervalInSeconds: number);
         export function getDeviceMotionValue(): DeviceMotionValue;
+        /**
+         * Chooses the sensors registered while the accelerometer is enabled, a combination of: 1 accelerometer,
+         * 2 linear acceleration, 4 gyroscope, 8 game rotation vector, 16 rotation vector, 32 gravity. The default is 7.
+         * Quaternion and gravity values stay 0 unless their sensors are chosen. Only Android supports it.
+         */
+        export function setMotionSensors(sensors: number);
+        /**
+         * In adaptive mode the accelerometer samples no faster than frames are drawn, and slowly while the window
+         * has no focus. The interval becomes a lower bound. Only Android supports it.
+         */
+        export function setAccelerometerAdaptiveSampling(adaptive: boolean);
+        /**
+         * Seconds the sensor hub may batch samples before delivering them, to save battery. 0, the default,
+         * disables batching. Only Android supports it.
+         */
+        export function setAccelerometerMaxReportLatency(latencyInSeconds: number);
     }
 
     export interface NativeSafeAreaEdge {
@@ -136,6 +156,39 @@ declare namespace jsb {
     export let onClose: () => void | undefined;
     export function openURL(url: string): void;
     export function garbageCollect(): void;
+    /**
+     * Android only. Time in microseconds that tasks posted from Java to the game thread, other than input,
+     * may take per frame. The rest is deferred to the next frame. 0, the default, runs them all.
+     */
+    export function setGameThreadTaskBudget(budgetMicros: number): void;
+    /**
+     * Android only. Maximum tasks run per frame by each lane of the Java task queue, 0 for no limit.
+     */
+    export function setMaxTasksPerFlush(maxTasks: number): void;
+    /**
+     * Android only. Send XMLHttpRequests created afterwards through a shared OkHttp client, which keeps
+     * connections alive and speaks HTTP/2, instead of the platform HttpURLConnection. Off by default.
+     */
+    export function setXMLHttpRequestUseOkHttp(useOkHttp: boolean): void;
+    /**
+     * Android only. Add the event time, pressure and size to every touch sample. With unbufferedDispatch,
+     * touches are also delivered at the rate of the touch screen instead of once per vsync. Off by default.
+     */
+    export function setHighFidelityInput(enabled: boolean, unbufferedDispatch?: boolean): void;
+
+    export namespace sys {
+        interface NativeLocalStorage extends Storage {
+            /**
+             * Store binary data as is, instead of encoding it to a string. getItem returns null for such an item.
+             */
+            setItemBytes(key: string, value: ArrayBuffer | ArrayBufferView): void;
+            /**
+             * Binary data of an item, an item set by setItem gives its UTF-8 bytes. Null if there is no such item.
+             */
+            getItemBytes(key: string): ArrayBuffer | null;
+        }
+        export const localStorage: NativeLocalStorage;
+    }
     enum AudioFormat {
         UNKNOWN,
         SIGNED_8,
@@ -376,11 +376,19 @@ export declare namespace native {
      * @zh 同时处理的最大下载任务数量, 可选, 默认值为6
      * @param timeoutInSeconds @en Download request timeout, optional, default is 45 seconds @zh 下载请求的超时时间, 可选, 默认值为45秒
      * @param tempFileNameSuffix  @en Temporary file suffix generated during download, optional, default is .tmp @zh 下载时产生的临时文件后缀, 可选, 默认值为.tmp
+     * @param maxSegmentCount
+     * @en Android only, maximum number of connections a large file is fetched over, optional, default is 1 (disabled)
+     * @zh 仅 Android, 大文件分段下载使用的最大连接数, 可选, 默认值为1 (不分段)
+     * @param minSegmentSize
+     * @en Android only, minimum size in bytes of a segment, optional, default is 8MB
+     * @zh 仅 Android, 每个分段的最小字节数, 可选, 默认值为8MB
      */
     export interface DownloaderHints {
         countOfMaxProcessingTasks?: number;
         timeoutInSeconds?: number;
         tempFileNameSuffix?: string;
+        maxSegmentCount?: number;
+        minSegmentSize?: number;
     }
 
     /**
@@ -3692,6 +3692,75 @@ static bool js_cc_Device_setAccelerometerInterval_static(se::State& s)
 }
 SE_BIND_FUNC(js_cc_Device_setAccelerometerInterval_static) 
 
+static bool js_cc_Device_setMotionSensors_static(se::State& s)
+{
+    // js_function
+    
+    CC_UNUSED bool ok = true;
+    const auto& args = s.args();
+    size_t argc = args.size();
+    int arg1 ;
+    
+    if(argc != 1) {
+        SE_REPORT_ERROR("wrong number of arguments: %d, was expecting %d", (int)argc, 1);
+        return false;
+    }
+    // %typemap(in) int, short, long, signed char, float, double
+    ok &= sevalue_to_native(args[0], &arg1, nullptr);
+    SE_PRECONDITION2(ok, false, "Device_setMotionSensors,1,SWIGTYPE_int"); 
+    cc::Device::setMotionSensors(arg1);
+    
+    
+    return true;
+}
+SE_BIND_FUNC(js_cc_Device_setMotionSensors_static) 
+
+static bool js_cc_Device_setAccelerometerAdaptiveSampling_static(se::State& s)
+{
+    // js_function
+    
+    CC_UNUSED bool ok = true;
+    const auto& args = s.args();
+    size_t argc = args.size();
+    bool arg1 ;
+    
+    if(argc != 1) {
+        SE_REPORT_ERROR("wrong number of arguments: %d, was expecting %d", (int)argc, 1);
+        return false;
+    }
+    // %typemap(in) bool
+    ok &= sevalue_to_native(args[0], &arg1);
+    SE_PRECONDITION2(ok, false, "Device_setAccelerometerAdaptiveSampling,1,SWIGTYPE_bool"); 
+    cc::Device::setAccelerometerAdaptiveSampling(arg1);
+    
+    
+    return true;
+}
+SE_BIND_FUNC(js_cc_Device_setAccelerometerAdaptiveSampling_static) 
+
+static bool js_cc_Device_setAccelerometerMaxReportLatency_static(se::State& s)
+{
+    // js_function
+    
+    CC_UNUSED bool ok = true;
+    const auto& args = s.args();
+    size_t argc = args.size();
+    float arg1 ;
+    
+    if(argc != 1) {
+        SE_REPORT_ERROR("wrong number of arguments: %d, was expecting %d", (int)argc, 1);
+        return false;
+    }
+    // %typemap(in) int, short, long, signed char, float, double
+    ok &= sevalue_to_native(args[0], &arg1, nullptr);
+    SE_PRECONDITION2(ok, false, "Device_setAccelerometerMaxReportLatency,1,SWIGTYPE_float"); 
+    cc::Device::setAccelerometerMaxReportLatency(arg1);
+    
+    
+    return true;
+}
+SE_BIND_FUNC(js_cc_Device_setAccelerometerMaxReportLatency_static) 
+
 static bool js_cc_Device_getDeviceOrientation_static(se::State& s)
 {
     // js_function
@@ -3874,6 +3943,9 @@ bool js_register_cc_Device(se::Object* obj) {
     cls->defineStaticFunction("getDevicePixelRatio", _SE(js_cc_Device_getDevicePixelRatio_static)); 
     cls->defineStaticFunction("setAccelerometerEnabled", _SE(js_cc_Device_setAccelerometerEnabled_static)); 
     cls->defineStaticFunction("setAccelerometerInterval", _SE(js_cc_Device_setAccelerometerInterval_static)); 
+    cls->defineStaticFunction("setMotionSensors", _SE(js_cc_Device_setMotionSensors_static)); 
+    cls->defineStaticFunction("setAccelerometerAdaptiveSampling", _SE(js_cc_Device_setAccelerometerAdaptiveSampling_static)); 
+    cls->defineStaticFunction("setAccelerometerMaxReportLatency", _SE(js_cc_Device_setAccelerometerMaxReportLatency_static)); 
     cls->defineStaticFunction("getDeviceOrientation", _SE(js_cc_Device_getDeviceOrientation_static)); 
     cls->defineStaticFunction("getDeviceModel", _SE(js_cc_Device_getDeviceModel_static)); 
     cls->defineStaticFunction("setKeepScreenOn", _SE(js_cc_Device_setKeepScreenOn_static)); 
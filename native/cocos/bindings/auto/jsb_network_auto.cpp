@@ -396,6 +396,82 @@ static bool js_cc_network_DownloaderHints_tempFileNameSuffix_get(se::State& s)
 }
 SE_BIND_PROP_GET(js_cc_network_DownloaderHints_tempFileNameSuffix_get) 
 
+static bool js_cc_network_DownloaderHints_maxSegmentCount_set(se::State& s)
+{
+    CC_UNUSED bool ok = true;
+    const auto& args = s.args();
+    size_t argc = args.size();
+    cc::network::DownloaderHints *arg1 = (cc::network::DownloaderHints *) NULL ;
+    
+    arg1 = SE_THIS_OBJECT<cc::network::DownloaderHints>(s);
+    SE_PRECONDITION2(arg1, false, "%s: Invalid Native Object", __FUNCTION__); 
+    
+    // %typemap(in) SWIGTYPE value in
+    ok &= sevalue_to_native(args[0], &arg1->maxSegmentCount, s.thisObject());
+    SE_PRECONDITION2(ok, false, "DownloaderHints_maxSegmentCount_set,2,SWIGTYPE_uint32_t"); 
+    
+    
+    
+    return true;
+}
+SE_BIND_PROP_SET(js_cc_network_DownloaderHints_maxSegmentCount_set) 
+
+static bool js_cc_network_DownloaderHints_maxSegmentCount_get(se::State& s)
+{
+    CC_UNUSED bool ok = true;
+    cc::network::DownloaderHints *arg1 = (cc::network::DownloaderHints *) NULL ;
+    
+    arg1 = SE_THIS_OBJECT<cc::network::DownloaderHints>(s);
+    SE_PRECONDITION2(arg1, false, "%s: Invalid Native Object", __FUNCTION__); 
+    // %typemap(out) SWIGTYPE
+    ok &= nativevalue_to_se(arg1->maxSegmentCount, s.rval(), s.thisObject() /*ctx*/);
+    SE_PRECONDITION2(ok, false, "DownloaderHints_maxSegmentCount_get, Error processing arguments");
+    SE_HOLD_RETURN_VALUE(arg1->maxSegmentCount, s.thisObject(), s.rval());
+    
+    
+    
+    return true;
+}
+SE_BIND_PROP_GET(js_cc_network_DownloaderHints_maxSegmentCount_get) 
+
+static bool js_cc_network_DownloaderHints_minSegmentSize_set(se::State& s)
+{
+    CC_UNUSED bool ok = true;
+    const auto& args = s.args();
+    size_t argc = args.size();
+    cc::network::DownloaderHints *arg1 = (cc::network::DownloaderHints *) NULL ;
+    
+    arg1 = SE_THIS_OBJECT<cc::network::DownloaderHints>(s);
+    SE_PRECONDITION2(arg1, false, "%s: Invalid Native Object", __FUNCTION__); 
+    
+    // %typemap(in) SWIGTYPE value in
+    ok &= sevalue_to_native(args[0], &arg1->minSegmentSize, s.thisObject());
+    SE_PRECONDITION2(ok, false, "DownloaderHints_minSegmentSize_set,2,SWIGTYPE_uint32_t"); 
+    
+    
+    
+    return true;
+}
+SE_BIND_PROP_SET(js_cc_network_DownloaderHints_minSegmentSize_set) 
+
+static bool js_cc_network_DownloaderHints_minSegmentSize_get(se::State& s)
+{
+    CC_UNUSED bool ok = true;
+    cc::network::DownloaderHints *arg1 = (cc::network::DownloaderHints *) NULL ;
+    
+    arg1 = SE_THIS_OBJECT<cc::network::DownloaderHints>(s);
+    SE_PRECONDITION2(arg1, false, "%s: Invalid Native Object", __FUNCTION__); 
+    // %typemap(out) SWIGTYPE
+    ok &= nativevalue_to_se(arg1->minSegmentSize, s.rval(), s.thisObject() /*ctx*/);
+    SE_PRECONDITION2(ok, false, "DownloaderHints_minSegmentSize_get, Error processing arguments");
+    SE_HOLD_RETURN_VALUE(arg1->minSegmentSize, s.thisObject(), s.rval());
+    
+    
+    
+    return true;
+}
+SE_BIND_PROP_GET(js_cc_network_DownloaderHints_minSegmentSize_get) 
+
 // js_ctor
 static bool js_new_cc_network_DownloaderHints(se::State& s) // NOLINT(readability-identifier-naming)
 {
@@ -451,6 +527,18 @@ bool sevalue_to_native(const se::Value &from, cc::network::DownloaderHints * to,
     }
     
     
+    json->getProperty("maxSegmentCount", &field, true);
+    if (!field.isNullOrUndefined()) {
+        ok &= sevalue_to_native(field, &(to->maxSegmentCount), ctx);
+    }
+    
+    
+    json->getProperty("minSegmentSize", &field, true);
+    if (!field.isNullOrUndefined()) {
+        ok &= sevalue_to_native(field, &(to->minSegmentSize), ctx);
+    }
+    
+    
     return ok;
 }
 
@@ -461,6 +549,8 @@ bool js_register_cc_network_DownloaderHints(se::Object* obj) {
     cls->defineProperty("countOfMaxProcessingTasks", _SE(js_cc_network_DownloaderHints_countOfMaxProcessingTasks_get), _SE(js_cc_network_DownloaderHints_countOfMaxProcessingTasks_set)); 
     cls->defineProperty("timeoutInSeconds", _SE(js_cc_network_DownloaderHints_timeoutInSeconds_get), _SE(js_cc_network_DownloaderHints_timeoutInSeconds_set)); 
     cls->defineProperty("tempFileNameSuffix", _SE(js_cc_network_DownloaderHints_tempFileNameSuffix_get), _SE(js_cc_network_DownloaderHints_tempFileNameSuffix_set)); 
+    cls->defineProperty("maxSegmentCount", _SE(js_cc_network_DownloaderHints_maxSegmentCount_get), _SE(js_cc_network_DownloaderHints_maxSegmentCount_set)); 
+    cls->defineProperty("minSegmentSize", _SE(js_cc_network_DownloaderHints_minSegmentSize_get), _SE(js_cc_network_DownloaderHints_minSegmentSize_set)); 
     
     
     
@@ -163,6 +163,12 @@ void EventDispatcher::dispatchTouchEvent(const TouchEvent &touchEvent) {
         jsTouch->setProperty("clientY", se::Value(touch.y));
         jsTouch->setProperty("pageX", se::Value(touch.x));
         jsTouch->setProperty("pageY", se::Value(touch.y));
+        if (touchEvent.timestamp != 0) {
+            jsTouch->setProperty("force", se::Value(touch.force));
+            jsTouch->setProperty("size", se::Value(touch.size));
+            // in ms like DOM event time stamps, keeping the sub ms part
+            jsTouch->setProperty("timestamp", se::Value(static_cast<double>(touchEvent.timestamp) / 1000000.0));
+        }
 
         jsTouchObjArray->setArrayElement(touchIndex, se::Value(jsTouch));
         ++touchIndex;
@@ -264,6 +264,59 @@ static bool JSB_localStorageSetItem(se::State &s) { // NOLINT(readability-identi
 }
 SE_BIND_FUNC(JSB_localStorageSetItem) // NOLINT(readability-identifier-naming)
 
+static bool JSB_localStorageSetItemBytes(se::State &s) { // NOLINT(readability-identifier-naming)
+    const auto &args = s.args();
+    size_t argc = args.size();
+    if (argc == 2) {
+        bool ok = true;
+        ccstd::string key;
+        ok = sevalue_to_native(args[0], &key);
+        SE_PRECONDITION2(ok, false, "Error processing arguments");
+        SE_PRECONDITION2(args[1].isObject() && (args[1].toObject()->isTypedArray() || args[1].toObject()->isArrayBuffer()), false, "Value must be an ArrayBuffer or a TypedArray");
+
+        uint8_t *data = nullptr;
+        size_t length = 0;
+        se::Object *buffer = args[1].toObject();
+        if (buffer->isTypedArray()) {
+            ok = buffer->getTypedArrayData(&data, &length);
+        } else {
+            ok = buffer->getArrayBufferData(&data, &length);
+        }
+        SE_PRECONDITION2(ok, false, "Error processing arguments");
+        localStorageSetItemBytes(key, data, length);
+        return true;
+    }
+
+    SE_REPORT_ERROR("Invalid number of arguments");
+    return false;
+}
+SE_BIND_FUNC(JSB_localStorageSetItemBytes) // NOLINT(readability-identifier-naming)
+
+static bool JSB_localStorageGetItemBytes(se::State &s) { // NOLINT(readability-identifier-naming)
+    const auto &args = s.args();
+    size_t argc = args.size();
+    if (argc == 1) {
+        bool ok = true;
+        ccstd::string key;
+        ok = sevalue_to_native(args[0], &key);
+        SE_PRECONDITION2(ok, false, "Error processing arguments");
+        ccstd::vector<uint8_t> data;
+        ok = localStorageGetItemBytes(key, &data);
+        if (ok) {
+            se::HandleObject buffer(se::Object::createArrayBufferObject(data.data(), data.size()));
+            s.rval().setObject(buffer);
+        } else {
+            s.rval().setNull();
+        }
+
+        return true;
+    }
+
+    SE_REPORT_ERROR("Invalid number of arguments");
+    return false;
+}
+SE_BIND_FUNC(JSB_localStorageGetItemBytes) // NOLINT(readability-identifier-naming)
+
 static bool JSB_localStorageClear(se::State &s) { // NOLINT(readability-identifier-naming)
     const auto &args = s.args();
     size_t argc = args.size();
@@ -326,6 +379,8 @@ static bool register_sys_localStorage(se::Object *obj) { // NOLINT(readability-i
     localStorageObj->defineFunction("getItem", _SE(JSB_localStorageGetItem));
     localStorageObj->defineFunction("removeItem", _SE(JSB_localStorageRemoveItem));
     localStorageObj->defineFunction("setItem", _SE(JSB_localStorageSetItem));
+    localStorageObj->defineFunction("getItemBytes", _SE(JSB_localStorageGetItemBytes));
+    localStorageObj->defineFunction("setItemBytes", _SE(JSB_localStorageSetItemBytes));
     localStorageObj->defineFunction("clear", _SE(JSB_localStorageClear));
     localStorageObj->defineFunction("key", _SE(JSB_localStorageKey));
     localStorageObj->defineProperty("length", _SE(JSB_localStorage_getLength), nullptr);
@@ -561,7 +616,7 @@ SE_BIND_FUNC(js_engine_CanvasRenderingContext2D_strokeText) // NOLINT(readabilit
 static se::Object *deviceMotionObject = nullptr;
 static bool JSB_getDeviceMotionValue(se::State &s) { // NOLINT(readability-identifier-naming)
     if (deviceMotionObject == nullptr) {
-        deviceMotionObject = se::Object::createArrayObject(9);
+        deviceMotionObject = se::Object::createArrayObject(16);
         deviceMotionObject->root();
     }
 
@@ -576,6 +631,13 @@ static bool JSB_getDeviceMotionValue(se::State &s) { // NOLINT(readability-ident
     deviceMotionObject->setArrayElement(6, se::Value(v.rotationRateAlpha));
     deviceMotionObject->setArrayElement(7, se::Value(v.rotationRateBeta));
     deviceMotionObject->setArrayElement(8, se::Value(v.rotationRateGamma));
+    deviceMotionObject->setArrayElement(9, se::Value(v.quaternionX));
+    deviceMotionObject->setArrayElement(10, se::Value(v.quaternionY));
+    deviceMotionObject->setArrayElement(11, se::Value(v.quaternionZ));
+    deviceMotionObject->setArrayElement(12, se::Value(v.quaternionW));
+    deviceMotionObject->setArrayElement(13, se::Value(v.gravityX));
+    deviceMotionObject->setArrayElement(14, se::Value(v.gravityY));
+    deviceMotionObject->setArrayElement(15, se::Value(v.gravityZ));
 
     s.rval().setObject(deviceMotionObject);
     return true;
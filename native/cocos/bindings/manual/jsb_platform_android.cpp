@@ -36,6 +36,15 @@
 #ifndef JCLS_CANVASIMPL
     #define JCLS_CANVASIMPL "com/cocos/lib/CanvasRenderingContext2DImpl"
 #endif
+#ifndef JCLS_HELPER
+    #define JCLS_HELPER "com/cocos/lib/CocosHelper"
+#endif
+#ifndef JCLS_HTTPCONNECTION
+    #define JCLS_HTTPCONNECTION "com/cocos/lib/CocosHttpURLConnection"
+#endif
+#ifndef JCLS_TOUCHHANDLER
+    #define JCLS_TOUCHHANDLER "com/cocos/lib/CocosTouchHandler"
+#endif
 
 static ccstd::unordered_map<ccstd::string, ccstd::string> gFontFamilyNameMap;
 
@@ -83,7 +92,80 @@ static bool jsbLoadFont(se::State &s) {
 }
 SE_BIND_FUNC(jsbLoadFont)
 
+static bool jsbSetGameThreadTaskBudget(se::State &s) {
+    const auto &args = s.args();
+    size_t argc = args.size();
+    if (argc == 1) {
+        int32_t budgetMicros = 0;
+        bool ok = sevalue_to_native(args[0], &budgetMicros);
+        SE_PRECONDITION2(ok, false, "Error processing argument: budgetMicros");
+        cc::JniHelper::callStaticVoidMethod(JCLS_HELPER, "setGameThreadTaskBudget", budgetMicros);
+        return true;
+    }
+
+    SE_REPORT_ERROR("wrong number of arguments: %d, was expecting %d", (int)argc, 1);
+    return false;
+}
+SE_BIND_FUNC(jsbSetGameThreadTaskBudget)
+
+static bool jsbSetMaxTasksPerFlush(se::State &s) {
+    const auto &args = s.args();
+    size_t argc = args.size();
+    if (argc == 1) {
+        int32_t maxTasks = 0;
+        bool ok = sevalue_to_native(args[0], &maxTasks);
+        SE_PRECONDITION2(ok, false, "Error processing argument: maxTasks");
+        cc::JniHelper::callStaticVoidMethod(JCLS_HELPER, "setMaxTasksPerFlush", maxTasks);
+        return true;
+    }
+
+    SE_REPORT_ERROR("wrong number of arguments: %d, was expecting %d", (int)argc, 1);
+    return false;
+}
+SE_BIND_FUNC(jsbSetMaxTasksPerFlush)
+
+static bool jsbSetXMLHttpRequestUseOkHttp(se::State &s) {
+    const auto &args = s.args();
+    size_t argc = args.size();
+    if (argc == 1) {
+        bool useOkHttp = false;
+        bool ok = sevalue_to_native(args[0], &useOkHttp);
+        SE_PRECONDITION2(ok, false, "Error processing argument: useOkHttp");
+        cc::JniHelper::callStaticVoidMethod(JCLS_HTTPCONNECTION, "setUseOkHttp", useOkHttp);
+        return true;
+    }
+
+    SE_REPORT_ERROR("wrong number of arguments: %d, was expecting %d", (int)argc, 1);
+    return false;
+}
+SE_BIND_FUNC(jsbSetXMLHttpRequestUseOkHttp)
+
+static bool jsbSetHighFidelityInput(se::State &s) {
+    const auto &args = s.args();
+    size_t argc = args.size();
+    if (argc == 1 || argc == 2) {
+        bool enabled = false;
+        bool unbufferedDispatch = false;
+        bool ok = sevalue_to_native(args[0], &enabled);
+        SE_PRECONDITION2(ok, false, "Error processing argument: enabled");
+        if (argc == 2) {
+            ok = sevalue_to_native(args[1], &unbufferedDispatch);
+            SE_PRECONDITION2(ok, false, "Error processing argument: unbufferedDispatch");
+        }
+        cc::JniHelper::callStaticVoidMethod(JCLS_TOUCHHANDLER, "setHighFidelityInput", enabled, unbufferedDispatch);
+        return true;
+    }
+
+    SE_REPORT_ERROR("wrong number of arguments: %d, was expecting %d", (int)argc, 2);
+    return false;
+}
+SE_BIND_FUNC(jsbSetHighFidelityInput)
+
 bool register_platform_bindings(se::Object * /*obj*/) { // NOLINT(readability-identifier-naming)
     __jsbObj->defineFunction("loadFont", _SE(jsbLoadFont));
+    __jsbObj->defineFunction("setGameThreadTaskBudget", _SE(jsbSetGameThreadTaskBudget));
+    __jsbObj->defineFunction("setMaxTasksPerFlush", _SE(jsbSetMaxTasksPerFlush));
+    __jsbObj->defineFunction("setXMLHttpRequestUseOkHttp", _SE(jsbSetXMLHttpRequestUseOkHttp));
+    __jsbObj->defineFunction("setHighFidelityInput", _SE(jsbSetHighFidelityInput));
     return true;
 }
\ No newline at end of file
@@ -72,11 +72,21 @@ public:
     float x = 0;
     float y = 0;
     int index = 0;
+    // Only filled by platforms reporting high fidelity input, 0 otherwise.
+    float force = 0;
+    float size = 0;
 
     TouchInfo(float x, float y, int index)
     : x(x),
       y(y),
       index(index) {}
+
+    TouchInfo(float x, float y, int index, float force, float size)
+    : x(x),
+      y(y),
+      index(index),
+      force(force),
+      size(size) {}
 };
 
 class TouchEvent {
@@ -93,6 +103,8 @@ public:
     ccstd::vector<TouchInfo> touches;
     Type type = Type::UNKNOWN;
     uint32_t windowId = 0;
+    // Time of the sample in ns on the monotonic clock, 0 if the platform doesn't report it.
+    int64_t timestamp = 0;
 };
 
 enum class StickKeyCode {
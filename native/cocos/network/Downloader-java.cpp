@@ -115,6 +115,22 @@ DownloaderJava::DownloaderJava(const DownloaderHints &hints)
         ccDeleteLocalRef(methodInfo.env, jObj);
         ccDeleteLocalRef(methodInfo.env, methodInfo.classID);
     }
+#if CC_PLATFORM == CC_PLATFORM_ANDROID
+    if (_impl != nullptr && hints.maxSegmentCount > 1) {
+        if (JniHelper::getStaticMethodInfo(methodInfo,
+                                           JCLS_DOWNLOADER,
+                                           "setSegmentedDownload",
+                                           "(" JARG_DOWNLOADER "IJ)V")) {
+            methodInfo.env->CallStaticVoidMethod(
+                methodInfo.classID,
+                methodInfo.methodID,
+                _impl,
+                static_cast<jint>(hints.maxSegmentCount),
+                static_cast<jlong>(hints.minSegmentSize));
+            ccDeleteLocalRef(methodInfo.env, methodInfo.classID);
+        }
+    }
+#endif
 }
 
 DownloaderJava::~DownloaderJava() {
@@ -143,10 +159,18 @@ IDownloadTask *DownloaderJava::createCoTask(std::shared_ptr<const DownloadTask>
     coTask->task = task;
 
     JniMethodInfo methodInfo;
+#if CC_PLATFORM == CC_PLATFORM_ANDROID
+    if (JniHelper::getStaticMethodInfo(methodInfo,
+                                       JCLS_DOWNLOADER,
+                                       "createTask",
+                                       "(" JARG_DOWNLOADER "I" JARG_STR JARG_STR "[" JARG_STR "I)V")) {
+#else
+    // the OHOS downloader has no priority queue
     if (JniHelper::getStaticMethodInfo(methodInfo,
                                        JCLS_DOWNLOADER,
                                        "createTask",
                                        "(" JARG_DOWNLOADER "I" JARG_STR JARG_STR "[" JARG_STR ")V")) {
+#endif
         jclass jclassString = methodInfo.env->FindClass("java/lang/String");
         ccstd::string url(task->requestURL);
         jstring jstrURL = methodInfo.env->NewStringUTF(StringUtil::replaceAll(url, " ", "%20").c_str());
@@ -158,7 +182,11 @@ IDownloadTask *DownloaderJava::createCoTask(std::shared_ptr<const DownloadTask>
             methodInfo.env->SetObjectArrayElement(jarrayHeader, index++, methodInfo.env->NewStringUTF(it.first.c_str()));
             methodInfo.env->SetObjectArrayElement(jarrayHeader, index++, methodInfo.env->NewStringUTF(it.second.c_str()));
         }
+#if CC_PLATFORM == CC_PLATFORM_ANDROID
+        methodInfo.env->CallStaticVoidMethod(methodInfo.classID, methodInfo.methodID, _impl, coTask->id, jstrURL, jstrPath, jarrayHeader, static_cast<jint>(task->priority));
+#else
         methodInfo.env->CallStaticVoidMethod(methodInfo.classID, methodInfo.methodID, _impl, coTask->id, jstrURL, jstrPath, jarrayHeader);
+#endif
         for (int i = 0; i < index; ++i) {
             ccDeleteLocalRef(methodInfo.env, methodInfo.env->GetObjectArrayElement(jarrayHeader, i));
         }
@@ -174,6 +202,76 @@ IDownloadTask *DownloaderJava::createCoTask(std::shared_ptr<const DownloadTask>
     return coTask;
 }
 
+ccstd::vector<IDownloadTask *> DownloaderJava::createCoTasks(ccstd::vector<std::shared_ptr<const DownloadTask>> &tasks) {
+#if CC_PLATFORM == CC_PLATFORM_ANDROID
+    // One JNI call for the whole batch, the tasks share header and priority.
+    ccstd::vector<IDownloadTask *> coTasks;
+    if (tasks.empty()) {
+        return coTasks;
+    }
+    coTasks.reserve(tasks.size());
+    for (auto &task : tasks) {
+        auto *coTask = ccnew DownloadTaskAndroid;
+        coTask->task = task;
+        _taskMap.insert(std::make_pair(coTask->id, coTask));
+        coTasks.push_back(coTask);
+    }
+
+    JniMethodInfo methodInfo;
+    if (JniHelper::getStaticMethodInfo(methodInfo,
+                                       JCLS_DOWNLOADER,
+                                       "createTasks",
+                                       "(" JARG_DOWNLOADER "[I[" JARG_STR "[" JARG_STR "[" JARG_STR "[" JARG_STR "I)V")) {
+        JNIEnv *env = methodInfo.env;
+        auto count = static_cast<jsize>(tasks.size());
+        jclass jclassString = env->FindClass("java/lang/String");
+        jintArray jarrayIds = env->NewIntArray(count);
+        jobjectArray jarrayURLs = env->NewObjectArray(count, jclassString, nullptr);
+        jobjectArray jarrayPaths = env->NewObjectArray(count, jclassString, nullptr);
+        ccstd::vector<jint> ids(count);
+        for (jsize i = 0; i < count; ++i) {
+            const auto &task = tasks[i];
+            ids[i] = static_cast<DownloadTaskAndroid *>(coTasks[i])->id;
+            ccstd::string url(task->requestURL);
+            jstring jstrURL = env->NewStringUTF(StringUtil::replaceAll(url, " ", "%20").c_str());
+            jstring jstrPath = env->NewStringUTF(task->storagePath.c_str());
+            env->SetObjectArrayElement(jarrayURLs, i, jstrURL);
+            env->SetObjectArrayElement(jarrayPaths, i, jstrPath);
+            // a batch can have thousands of files, don't run out of local refs
+            ccDeleteLocalRef(env, jstrURL);
+            ccDeleteLocalRef(env, jstrPath);
+        }
+        env->SetIntArrayRegion(jarrayIds, 0, count, ids.data());
+
+        const ccstd::unordered_map<ccstd::string, ccstd::string> &headMap = tasks[0]->header;
+        jobjectArray jarrayHeader = env->NewObjectArray(static_cast<jsize>(headMap.size() * 2), jclassString, nullptr);
+        int index = 0;
+        for (const auto &it : headMap) {
+            jstring jstrName = env->NewStringUTF(it.first.c_str());
+            jstring jstrValue = env->NewStringUTF(it.second.c_str());
+            env->SetObjectArrayElement(jarrayHeader, index++, jstrName);
+            env->SetObjectArrayElement(jarrayHeader, index++, jstrValue);
+            ccDeleteLocalRef(env, jstrName);
+            ccDeleteLocalRef(env, jstrValue);
+        }
+
+        env->CallStaticVoidMethod(methodInfo.classID, methodInfo.methodID, _impl, jarrayIds, jarrayURLs, jarrayPaths,
+                                  jarrayHeader, nullptr, static_cast<jint>(tasks[0]->priority));
+        ccDeleteLocalRef(env, jclassString);
+        ccDeleteLocalRef(env, jarrayIds);
+        ccDeleteLocalRef(env, jarrayURLs);
+        ccDeleteLocalRef(env, jarrayPaths);
+        ccDeleteLocalRef(env, jarrayHeader);
+        ccDeleteLocalRef(env, methodInfo.classID);
+    }
+
+    DLLOG("DownloaderJava::createCoTasks count: %d", static_cast<int>(coTasks.size()));
+    return coTasks;
+#else
+    return IDownloaderImpl::createCoTasks(tasks);
+#endif
+}
+
 void DownloaderJava::abort(const std::unique_ptr<IDownloadTask> &task) {
     auto iter = _taskMap.begin();
     for (; iter != _taskMap.end(); iter++) {
@@ -209,6 +307,65 @@ void DownloaderJava::abort(const std::unique_ptr<IDownloadTask> &task) {
     DLLOG("DownloaderJava:abort");
 }
 
+int DownloaderJava::findTaskId(const std::unique_ptr<IDownloadTask> &task) const {
+    for (const auto &it : _taskMap) {
+        if (task.get() == it.second) {
+            return it.first;
+        }
+    }
+    return 0;
+}
+
+void DownloaderJava::setTaskPriority(const std::unique_ptr<IDownloadTask> &task, int priority) {
+#if CC_PLATFORM == CC_PLATFORM_ANDROID
+    int taskId = findTaskId(task);
+    if (_impl == nullptr || taskId == 0) {
+        return;
+    }
+    JniMethodInfo methodInfo;
+    if (JniHelper::getStaticMethodInfo(methodInfo,
+                                       JCLS_DOWNLOADER,
+                                       "setTaskPriority",
+                                       "(" JARG_DOWNLOADER "II"
+                                       ")V")) {
+        methodInfo.env->CallStaticVoidMethod(
+            methodInfo.classID,
+            methodInfo.methodID,
+            _impl,
+            taskId,
+            priority);
+        ccDeleteLocalRef(methodInfo.env, methodInfo.classID);
+    }
+#else
+    CC_UNUSED_PARAM(task);
+    CC_UNUSED_PARAM(priority);
+#endif
+}
+
+void DownloaderJava::promoteTask(const std::unique_ptr<IDownloadTask> &task) {
+#if CC_PLATFORM == CC_PLATFORM_ANDROID
+    int taskId = findTaskId(task);
+    if (_impl == nullptr || taskId == 0) {
+        return;
+    }
+    JniMethodInfo methodInfo;
+    if (JniHelper::getStaticMethodInfo(methodInfo,
+                                       JCLS_DOWNLOADER,
+                                       "promoteTask",
+                                       "(" JARG_DOWNLOADER "I"
+                                       ")V")) {
+        methodInfo.env->CallStaticVoidMethod(
+            methodInfo.classID,
+            methodInfo.methodID,
+            _impl,
+            taskId);
+        ccDeleteLocalRef(methodInfo.env, methodInfo.classID);
+    }
+#else
+    CC_UNUSED_PARAM(task);
+#endif
+}
+
 void DownloaderJava::onProcessImpl(int taskId, uint32_t dl, uint32_t dlNow, uint32_t dlTotal) {
     DLLOG("DownloaderJava::onProgress(taskId: %d, dl: %lld, dlnow: %lld, dltotal: %lld)", taskId, dl, dlNow, dlTotal);
     auto iter = _taskMap.find(taskId);
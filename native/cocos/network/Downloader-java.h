@@ -42,13 +42,22 @@ public:
 
     IDownloadTask *createCoTask(std::shared_ptr<const DownloadTask> &task) override;
 
+    ccstd::vector<IDownloadTask *> createCoTasks(ccstd::vector<std::shared_ptr<const DownloadTask>> &tasks) override;
+
     void abort(const std::unique_ptr<IDownloadTask> &task) override;
 
+    void setTaskPriority(const std::unique_ptr<IDownloadTask> &task, int priority) override;
+
+    void promoteTask(const std::unique_ptr<IDownloadTask> &task) override;
+
     // designed called by internal
     void onProcessImpl(int taskId, uint32_t dl, uint32_t dlNow, uint32_t dlTotal);
     void onFinishImpl(int taskId, int errCode, const char *errStr, const ccstd::vector<unsigned char> &data);
 
 protected:
+    // Returns 0 if the task already finished or was aborted.
+    int findTaskId(const std::unique_ptr<IDownloadTask> &task) const;
+
     int _id;
     _jobject *_impl;
     ccstd::unordered_map<int, DownloadTaskAndroid *> _taskMap;
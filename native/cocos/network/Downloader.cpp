@@ -131,6 +131,14 @@ std::shared_ptr<const DownloadTask> Downloader::createDownloadTask(const ccstd::
                                                                    const ccstd::string &storagePath,
                                                                    const ccstd::unordered_map<ccstd::string, ccstd::string> &header,
                                                                    const ccstd::string &identifier /* = ""*/) {
+    return createDownloadTask(srcUrl, storagePath, header, DownloadTask::PRIORITY_NORMAL, identifier);
+}
+
+std::shared_ptr<const DownloadTask> Downloader::createDownloadTask(const ccstd::string &srcUrl,
+                                                                   const ccstd::string &storagePath,
+                                                                   const ccstd::unordered_map<ccstd::string, ccstd::string> &header,
+                                                                   int priority,
+                                                                   const ccstd::string &identifier /* = ""*/) {
     auto *iTask = ccnew DownloadTask();
     std::shared_ptr<const DownloadTask> task(iTask);
     do {
@@ -138,6 +146,7 @@ std::shared_ptr<const DownloadTask> Downloader::createDownloadTask(const ccstd::
         iTask->storagePath = storagePath;
         iTask->identifier = identifier;
         iTask->header = header;
+        iTask->priority = priority;
         if (0 == srcUrl.length() || 0 == storagePath.length()) {
             if (onTaskError) {
                 onTaskError(*task, DownloadTask::ERROR_INVALID_PARAMS, 0, "URL or storage path is empty.");
@@ -157,9 +166,54 @@ std::shared_ptr<const DownloadTask> Downloader::createDownloadTask(const ccstd::
     return createDownloadTask(srcUrl, storagePath, emptyHeader, identifier);
 }
 
+ccstd::vector<std::shared_ptr<const DownloadTask>> Downloader::createDownloadTasks(const ccstd::vector<ccstd::string> &srcUrls,
+                                                                                   const ccstd::vector<ccstd::string> &storagePaths,
+                                                                                   const ccstd::vector<ccstd::string> &identifiers,
+                                                                                   const ccstd::unordered_map<ccstd::string, ccstd::string> &header,
+                                                                                   int priority) {
+    CC_ASSERT(srcUrls.size() == storagePaths.size() && srcUrls.size() == identifiers.size());
+    ccstd::vector<std::shared_ptr<const DownloadTask>> tasks(srcUrls.size());
+    ccstd::vector<std::shared_ptr<const DownloadTask>> validTasks;
+    ccstd::vector<DownloadTask *> validITasks;
+    validTasks.reserve(srcUrls.size());
+    validITasks.reserve(srcUrls.size());
+    for (size_t i = 0; i < srcUrls.size(); ++i) {
+        auto *iTask = ccnew DownloadTask();
+        std::shared_ptr<const DownloadTask> task(iTask);
+        iTask->requestURL = srcUrls[i];
+        iTask->storagePath = storagePaths[i];
+        iTask->identifier = identifiers[i];
+        iTask->header = header;
+        iTask->priority = priority;
+        if (0 == srcUrls[i].length() || 0 == storagePaths[i].length()) {
+            if (onTaskError) {
+                onTaskError(*task, DownloadTask::ERROR_INVALID_PARAMS, 0, "URL or storage path is empty.");
+            }
+            continue;
+        }
+        tasks[i] = task;
+        validTasks.push_back(task);
+        validITasks.push_back(iTask);
+    }
+
+    ccstd::vector<IDownloadTask *> coTasks = _impl->createCoTasks(validTasks);
+    for (size_t i = 0; i < validTasks.size(); ++i) {
+        validITasks[i]->_coTask.reset(coTasks[i]);
+    }
+    return tasks;
+}
+
 void Downloader::abort(const std::shared_ptr<const DownloadTask> &task) {
     _impl->abort(task->_coTask);
 }
+
+void Downloader::setTaskPriority(const std::shared_ptr<const DownloadTask> &task, int priority) {
+    _impl->setTaskPriority(task->_coTask, priority);
+}
+
+void Downloader::promoteTask(const std::shared_ptr<const DownloadTask> &task) {
+    _impl->promoteTask(task->_coTask);
+}
 //ccstd::string Downloader::getFileNameFromUrl(const ccstd::string& srcUrl)
 //{
 //    // Find file name and file extension
@@ -49,10 +49,17 @@ public:
     static const int ERROR_IMPL_INTERNAL = -3;
     static const int ERROR_ABORT = -4;
 
+    static const int PRIORITY_LOW = 0;
+    static const int PRIORITY_NORMAL = 1;
+    static const int PRIORITY_HIGH = 2;
+    static const int PRIORITY_CRITICAL = 3;
+
     ccstd::string identifier;
     ccstd::string requestURL;
     ccstd::string storagePath;
     ccstd::unordered_map<ccstd::string, ccstd::string> header;
+    // Priority the task was created with, queued tasks of higher priority start first.
+    int priority{PRIORITY_NORMAL};
 
     DownloadTask();
     virtual ~DownloadTask();
@@ -66,6 +73,9 @@ struct CC_DLL DownloaderHints {
     uint32_t countOfMaxProcessingTasks{6};
     uint32_t timeoutInSeconds{45};
     ccstd::string tempFileNameSuffix{".tmp"};
+    // Android only, a file of at least two minSegmentSize is fetched over up to this many connections.
+    uint32_t maxSegmentCount{1};
+    uint32_t minSegmentSize{8 * 1024 * 1024};
 };
 
 class CC_DLL Downloader final {
@@ -116,8 +126,25 @@ public:
 
     std::shared_ptr<const DownloadTask> createDownloadTask(const ccstd::string &srcUrl, const ccstd::string &storagePath, const ccstd::unordered_map<ccstd::string, ccstd::string> &header, const ccstd::string &identifier = "");
 
+    std::shared_ptr<const DownloadTask> createDownloadTask(const ccstd::string &srcUrl, const ccstd::string &storagePath, const ccstd::unordered_map<ccstd::string, ccstd::string> &header, int priority, const ccstd::string &identifier = "");
+
+    /**
+     * Create a file task per entry of srcUrls, storagePaths and identifiers, which have the same size.
+     * The tasks share header and priority. An entry of the result is null if its url or path is empty.
+     */
+    ccstd::vector<std::shared_ptr<const DownloadTask>> createDownloadTasks(const ccstd::vector<ccstd::string> &srcUrls,
+                                                                           const ccstd::vector<ccstd::string> &storagePaths,
+                                                                           const ccstd::vector<ccstd::string> &identifiers,
+                                                                           const ccstd::unordered_map<ccstd::string, ccstd::string> &header,
+                                                                           int priority);
+
     void abort(const std::shared_ptr<const DownloadTask> &task);
 
+    // Only affect a task still waiting in queue, and only on platforms with a prioritized queue.
+    void setTaskPriority(const std::shared_ptr<const DownloadTask> &task, int priority);
+
+    void promoteTask(const std::shared_ptr<const DownloadTask> &task);
+
 private:
     std::unique_ptr<IDownloaderImpl> _impl;
 };
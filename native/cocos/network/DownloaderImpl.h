@@ -72,7 +72,22 @@ public:
 
     virtual IDownloadTask *createCoTask(std::shared_ptr<const DownloadTask> &task) = 0;
 
+    // Start many tasks at once, by default one by one.
+    virtual ccstd::vector<IDownloadTask *> createCoTasks(ccstd::vector<std::shared_ptr<const DownloadTask>> &tasks) {
+        ccstd::vector<IDownloadTask *> coTasks;
+        coTasks.reserve(tasks.size());
+        for (auto &task : tasks) {
+            coTasks.push_back(createCoTask(task));
+        }
+        return coTasks;
+    }
+
     virtual void abort(const std::unique_ptr<IDownloadTask> &task) = 0;
+
+    // Queue order is up to the implementation, by default priorities are ignored.
+    virtual void setTaskPriority(const std::unique_ptr<IDownloadTask> & /*task*/, int /*priority*/) {}
+
+    virtual void promoteTask(const std::unique_ptr<IDownloadTask> & /*task*/) {}
 };
 
 } // namespace network
@@ -28,6 +28,7 @@
 
 #include "network/HttpClient.h"
 
+#include <algorithm>
 #include <cerrno>
 #include <cstdio>
 #include <sstream>
@@ -53,6 +54,7 @@ using HttpCookies = ccstd::vector<ccstd::string>;
 using HttpCookiesIter = HttpCookies::iterator;
 
 static HttpClient *gHttpClient = nullptr; // pointer to singleton
+static constexpr int MAX_RESPONSE_PRESIZE = 1024 * 1024;
 static LegacyThreadPool *gThreadPool = nullptr;
 
 struct CookiesInfo {
@@ -278,30 +280,39 @@ public:
         return headers;
     }
 
-    char *getResponseContent(HttpResponse *response) { // NOLINT
+    // Java appends the body to the response data chunk by chunk, see nativeOnResponseData.
+    bool readResponseContent(HttpResponse *response, int contentLength) { // NOLINT
         if (nullptr == response) {
-            return nullptr;
+            return false;
         }
 
-        char *content = nullptr;
+        auto *recvBuffer = static_cast<ccstd::vector<char> *>(response->getResponseData());
+        recvBuffer->clear();
+        if (contentLength > 0) {
+            // Content-Length comes from the server, a larger body grows the buffer as chunks arrive
+            recvBuffer->reserve(std::min(contentLength, MAX_RESPONSE_PRESIZE));
+        }
+
+        jlong total = -1;
         JniMethodInfo methodInfo;
         if (JniHelper::getStaticMethodInfo(methodInfo,
                                            JCLS_HTTPCLIENT,
-                                           "getResponseContent",
-                                           "(Ljava/net/HttpURLConnection;)[B")) {
-            jobject jObj = methodInfo.env->CallStaticObjectMethod(
-                methodInfo.classID, methodInfo.methodID, _httpURLConnection);
-
-            _contentLength = getCStrFromJByteArray(static_cast<jbyteArray>(jObj), methodInfo.env, &content);
-            if (nullptr != jObj) {
-                ccDeleteLocalRef(methodInfo.env, jObj);
-            }
+                                           "readResponseContent",
+                                           "(Ljava/net/HttpURLConnection;J)J")) {
+            total = methodInfo.env->CallStaticLongMethod(
+                methodInfo.classID, methodInfo.methodID, _httpURLConnection, reinterpret_cast<jlong>(recvBuffer));
             ccDeleteLocalRef(methodInfo.env, methodInfo.classID);
         } else {
             CC_LOG_ERROR("HttpClient::%s failed!", __FUNCTION__);
         }
 
-        return content;
+        if (total < 0) {
+            recvBuffer->clear();
+            _contentLength = 0;
+            return false;
+        }
+        _contentLength = static_cast<int>(total);
+        return true;
     }
 
     char *getResponseHeaderByKey(const char *key) {
@@ -563,20 +574,6 @@ private:
         return retVal;
     }
 
-    int getCStrFromJByteArray(jbyteArray jba, JNIEnv *env, char **ppData) { //NOLINT(readability-convert-member-functions-to-static)
-        if (nullptr == jba) {
-            *ppData = nullptr;
-            return 0;
-        }
-
-        int len = env->GetArrayLength(jba);
-        auto *str = static_cast<jbyte *>(malloc(sizeof(jbyte) * len));
-        env->GetByteArrayRegion(jba, 0, len, str);
-
-        *ppData = reinterpret_cast<char *>(str);
-        return len;
-    }
-
     const ccstd::string &getCookieString() const {
         return _responseCookies;
     }
@@ -676,13 +673,7 @@ void HttpClient::processResponse(HttpResponse *response, char *responseMessage)
 
     //content len
     int contentLength = urlConnection.getResponseHeaderByKeyInt("Content-Length");
-    char *contentInfo = urlConnection.getResponseContent(response);
-    if (nullptr != contentInfo) {
-        auto *recvBuffer = static_cast<ccstd::vector<char> *>(response->getResponseData());
-        recvBuffer->clear();
-        recvBuffer->insert(recvBuffer->begin(), contentInfo, contentInfo + urlConnection.getContentLength());
-    }
-    free(contentInfo);
+    urlConnection.readResponseContent(response, contentLength);
 
     char *messageInfo = urlConnection.getResponseMessage();
     if (messageInfo) {
@@ -962,3 +953,14 @@ const ccstd::string &HttpClient::getSSLVerification() {
 } // namespace network
 
 } // namespace cc
+
+extern "C" {
+
+JNIEXPORT void JNICALL JNI_METHOD1(com_cocos_lib_CocosHttpURLConnection, nativeOnResponseData)(JNIEnv *env, jclass /*clazz*/, jlong handle, jbyteArray data, jint len) {
+    auto *recvBuffer = reinterpret_cast<ccstd::vector<char> *>(handle);
+    size_t offset = recvBuffer->size();
+    recvBuffer->resize(offset + len);
+    env->GetByteArrayRegion(data, 0, len, reinterpret_cast<jbyte *>(recvBuffer->data() + offset));
+}
+
+} // extern "C"
@@ -632,6 +632,12 @@ void AndroidPlatform::pollEvent() {
     //
 }
 
+void AndroidPlatform::setFps(int32_t fps) {
+    UniversalPlatform::setFps(fps);
+    // adaptive sensor sampling follows the frame rate
+    setSensorFrameRateJNI(fps);
+}
+
 void *AndroidPlatform::getActivity() { // Dangerous
     return _app->activity->javaGameActivity;
 }
@@ -49,6 +49,8 @@ public:
 
     int32_t loop() override;
 
+    void setFps(int32_t fps) override;
+
     void *getActivity();
 
     static void *getEnv();
@@ -48,6 +48,8 @@ import java.util.List;
 
 public class CocosActivity extends GameActivity {
     private static final String TAG = "CocosActivity";
+    // How long lifecycle callbacks on the UI thread wait for localStorage to reach disk.
+    private static final long LOCAL_STORAGE_FLUSH_TIMEOUT_MS = 100;
     private CocosWebViewHelper mWebViewHelper = null;
     private CocosVideoHelper mVideoHelper = null;
     private CocosOrientationHelper mOrientationHelper = null;
@@ -135,6 +137,8 @@ public class CocosActivity extends GameActivity {
     @Override
     protected void onDestroy() {
         super.onDestroy();
+        // bounded, a slow disk finishes the flush on the writer thread
+        CocosLocalStorage.flush(LOCAL_STORAGE_FLUSH_TIMEOUT_MS);
         CocosHelper.unregisterBatteryLevelReceiver(this);
         CocosAudioFocusManager.unregisterAudioFocusListener(this);
         CanvasRenderingContext2DImpl.destroy();
@@ -144,6 +148,8 @@ public class CocosActivity extends GameActivity {
     protected void onPause() {
         super.onPause();
         mSensorHandler.onPause();
+        // bounded, a slow disk finishes the flush on the writer thread
+        CocosLocalStorage.flush(LOCAL_STORAGE_FLUSH_TIMEOUT_MS);
         if (null != mOrientationHelper) {
             mOrientationHelper.onPause();
         }
@@ -165,6 +171,7 @@ public class CocosActivity extends GameActivity {
     @Override
     protected void onStop() {
         super.onStop();
+        CocosLocalStorage.flush(LOCAL_STORAGE_FLUSH_TIMEOUT_MS);
         mSurfaceView.setVisibility(View.INVISIBLE);
         if (null != mSurfaceViewArray) {
             for (CocosSurfaceView surfaceView : mSurfaceViewArray) {
@@ -187,6 +194,7 @@ public class CocosActivity extends GameActivity {
     @Override
     public void onWindowFocusChanged(boolean hasFocus) {
         super.onWindowFocusChanged(hasFocus);
+        mSensorHandler.onWindowFocusChanged(hasFocus);
         if (hasFocus && CocosAudioFocusManager.isAudioFocusLoss()) {
             CocosAudioFocusManager.registerAudioFocusListener(this);
         }
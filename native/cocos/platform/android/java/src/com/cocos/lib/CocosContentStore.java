@@ -0,0 +1,273 @@
+/****************************************************************************
+ Copyright (c) 2022 Xiamen Yaji Software Co., Ltd.
+
+ http://www.cocos.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated engine source code (the "Software"), a limited,
+ worldwide, royalty-free, non-assignable, revocable and non-exclusive license
+ to use Cocos Creator solely to develop games on your target platforms. You shall
+ not use Cocos Creator software for developing other software or tools that's
+ used for developing games. You are not granted to publish, distribute,
+ sublicense, and/or sell copies of Cocos Creator.
+
+ The software or tools in this License Agreement are licensed, not sold.
+ Xiamen Yaji Software Co., Ltd. reserves all rights not expressly granted to you.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ****************************************************************************/
+
+package com.cocos.lib;
+
+import android.system.ErrnoException;
+import android.system.Os;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Content addressed store of downloaded files, keyed by the SHA-256 of their content.
+ * A file task whose digest is known is served from here instead of the network, whatever
+ * url it comes from. Entries are hard links to files already downloaded, so a hit costs
+ * no extra disk space. As the game may change its file in place, an entry is hashed again
+ * before it is used.
+ *
+ * The store is bounded by size, the least recently used entries are evicted first.
+ */
+class CocosContentStore {
+    private static final String TAG = "CocosContentStore";
+
+    // Set by native in the header array of a task, it is not sent to the server.
+    static final String CONTENT_DIGEST_HEADER = "X-Cocos-Content-SHA256";
+
+    private static final String STORE_DIR_NAME = "cocos_content_store";
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private static final long DEFAULT_MAX_SIZE = 256L * 1024 * 1024;
+
+    private static File sStoreDir = null;
+    private static long sMaxSize = DEFAULT_MAX_SIZE;
+
+    static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 is always available on Android
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0xf];
+            chars[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0xf];
+        }
+        return new String(chars);
+    }
+
+    // Name of the temp file of an url, 128 bits of SHA-256 so different urls don't share it.
+    static String urlKey(String url) {
+        byte[] hash = newDigest().digest(url.getBytes());
+        byte[] key = new byte[16];
+        System.arraycopy(hash, 0, key, 0, key.length);
+        return toHex(key);
+    }
+
+    // Lower case hex of a digest given by native, null if it is not a valid SHA-256.
+    static String normalizeDigest(String digest) {
+        if (digest == null) return null;
+        String hex = digest.trim().toLowerCase();
+        if (hex.startsWith("sha256:") || hex.startsWith("sha-256:")) {
+            hex = hex.substring(hex.indexOf(':') + 1);
+        }
+        if (hex.length() != 64) return null;
+        for (int i = 0; i < hex.length(); i++) {
+            char c = hex.charAt(i);
+            if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'))) return null;
+        }
+        return hex;
+    }
+
+    /**
+     * Feed the first {@code length} bytes of a file into the digest, used when a download
+     * resumes so the digest covers the bytes written by a previous attempt.
+     */
+    static void update(MessageDigest digest, File file, long length) throws IOException {
+        FileInputStream fis = new FileInputStream(file);
+        try {
+            FileChannel channel = fis.getChannel();
+            ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+            long remaining = length;
+            while (remaining > 0) {
+                buffer.limit((int) Math.min(buffer.capacity(), remaining));
+                int len = channel.read(buffer);
+                if (len == -1) break;
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+                remaining -= len;
+            }
+        } finally {
+            fis.close();
+        }
+    }
+
+    static String digestFile(File file) throws IOException {
+        MessageDigest digest = newDigest();
+        update(digest, file, file.length());
+        return toHex(digest.digest());
+    }
+
+    static synchronized void setMaxSize(long bytes) {
+        sMaxSize = bytes > 0 ? bytes : DEFAULT_MAX_SIZE;
+        trim();
+    }
+
+    /**
+     * Put the stored file of {@code digest} at {@code target}. Returns false if the store has
+     * no such file or it can't be used, the caller downloads it then. An entry whose content
+     * no longer matches its digest is dropped.
+     */
+    static boolean restore(String digest, File target) {
+        File stored = getStoredFile(digest);
+        if (stored == null || !stored.isFile()) return false;
+
+        File tmp = new File(target.getPath() + ".store");
+        tmp.delete();
+        try {
+            if (!link(stored, tmp)) {
+                copy(stored, tmp);
+            }
+            // the entry may share its data with a file changed in place since it was stored
+            if (!digest.equals(digestFile(tmp))) {
+                Log.w(TAG, "Dropping modified entry " + digest);
+                tmp.delete();
+                stored.delete();
+                return false;
+            }
+            stored.setLastModified(System.currentTimeMillis());
+            if (target.exists() && !target.delete()) {
+                tmp.delete();
+                return false;
+            }
+            return tmp.renameTo(target);
+        } catch (IOException e) {
+            Log.e(TAG, "Can't restore " + digest + " to " + target.getPath() + ": " + e.toString());
+            tmp.delete();
+            return false;
+        }
+    }
+
+    // Record a verified file, it must not be modified in place afterwards.
+    static void store(String digest, File file) {
+        File stored = getStoredFile(digest);
+        if (stored == null || stored.exists()) return;
+        if (!link(file, stored)) {
+            Log.w(TAG, "Can't link " + file.getPath() + " into content store");
+            return;
+        }
+        stored.setLastModified(System.currentTimeMillis());
+        trim();
+    }
+
+    // Evict the least recently used entries until the store fits in sMaxSize.
+    private static synchronized void trim() {
+        File dir = getStoreDir();
+        if (dir == null) return;
+        File[] files = dir.listFiles();
+        if (files == null) return;
+        long size = 0;
+        for (File file : files) {
+            size += file.length();
+        }
+        if (size <= sMaxSize) return;
+
+        final long[] lastModified = new long[files.length];
+        Integer[] order = new Integer[files.length];
+        for (int i = 0; i < files.length; i++) {
+            lastModified[i] = files[i].lastModified();
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                return Long.compare(lastModified[a], lastModified[b]);
+            }
+        });
+        for (int i = 0; i < order.length && size > sMaxSize; i++) {
+            File file = files[order[i]];
+            long length = file.length();
+            if (file.delete()) {
+                size -= length;
+            }
+        }
+    }
+
+    static void clear() {
+        File dir = getStoreDir();
+        if (dir == null) return;
+        File[] files = dir.listFiles();
+        if (files == null) return;
+        for (File file : files) {
+            file.delete();
+        }
+    }
+
+    private static synchronized File getStoreDir() {
+        if (sStoreDir == null && GlobalObject.getActivity() != null) {
+            File dir = new File(GlobalObject.getActivity().getCacheDir(), STORE_DIR_NAME);
+            if (dir.isDirectory() || dir.mkdirs()) {
+                sStoreDir = dir;
+            }
+        }
+        return sStoreDir;
+    }
+
+    private static File getStoredFile(String digest) {
+        File dir = getStoreDir();
+        return dir == null ? null : new File(dir, digest);
+    }
+
+    private static boolean link(File from, File to) {
+        try {
+            Os.link(from.getPath(), to.getPath());
+            return true;
+        } catch (ErrnoException e) {
+            // different file system or not supported, caller falls back
+            return false;
+        }
+    }
+
+    private static void copy(File from, File to) throws IOException {
+        FileInputStream fis = new FileInputStream(from);
+        FileOutputStream fos = new FileOutputStream(to);
+        try {
+            FileChannel in = fis.getChannel();
+            FileChannel out = fos.getChannel();
+            long size = in.size();
+            long position = 0;
+            while (position < size) {
+                position += in.transferTo(position, size - position, out);
+            }
+        } finally {
+            fis.close();
+            fos.close();
+        }
+    }
+}
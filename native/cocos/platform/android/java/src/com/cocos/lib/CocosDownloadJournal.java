@@ -0,0 +1,266 @@
+/****************************************************************************
+ Copyright (c) 2022 Xiamen Yaji Software Co., Ltd.
+
+ http://www.cocos.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated engine source code (the "Software"), a limited,
+ worldwide, royalty-free, non-assignable, revocable and non-exclusive license
+ to use Cocos Creator solely to develop games on your target platforms. You shall
+ not use Cocos Creator software for developing other software or tools that's
+ used for developing games. You are not granted to publish, distribute,
+ sublicense, and/or sell copies of Cocos Creator.
+
+ The software or tools in this License Agreement are licensed, not sold.
+ Xiamen Yaji Software Co., Ltd. reserves all rights not expressly granted to you.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ****************************************************************************/
+
+package com.cocos.lib;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Resume state of the temp file of a download, stored next to it. It keeps the validators
+ * of the response (ETag, Last-Modified) and for each byte range of the file how many bytes
+ * are known to be on disk. A range only advances after the temp file is synced, so after a
+ * crash the download resumes from bytes that were really written.
+ *
+ * Syncing is batched: data and journal are flushed to disk once every few MB or seconds,
+ * never per write.
+ */
+class CocosDownloadJournal {
+    private static final String TAG = "CocosDownloadJournal";
+
+    static final String JOURNAL_FILE_SUFFIX = ".journal";
+
+    // Layout: magic(int) version(int) total(long) etag(UTF) lastModified(UTF) count(int),
+    // then per range start(long) end(long) validated(long). end is -1 if length is unknown.
+    private static final int JOURNAL_MAGIC = 0x434a524e;
+    private static final int JOURNAL_VERSION = 1;
+    private static final int RECORD_SIZE = 24;
+
+    private static final long SYNC_BYTES = 4 * 1024 * 1024;
+    private static final long SYNC_INTERVAL_MS = 2000;
+
+    private final File _file;
+    private final long _total;
+    private final String _etag;
+    private final String _lastModified;
+    private final long[] _starts;
+    private final long[] _ends;
+    private final long[] _validated;
+    private final boolean _created;
+
+    private FileChannel _channel;
+    private long _recordsOffset;
+    private final ByteBuffer _record = ByteBuffer.allocate(8);
+    private long _unsyncedBytes = 0;
+    private long _lastSyncTime = SystemClock.uptimeMillis();
+
+    private CocosDownloadJournal(File file, long total, String etag, String lastModified,
+                                 long[] starts, long[] ends, long[] validated, boolean created) {
+        _file = file;
+        _total = total;
+        _etag = etag;
+        _lastModified = lastModified;
+        _starts = starts;
+        _ends = ends;
+        _validated = validated;
+        _created = created;
+    }
+
+    static File getFile(File tempFile) {
+        return new File(tempFile.getPath() + JOURNAL_FILE_SUFFIX);
+    }
+
+    /**
+     * Journal of a new download split into {@code segmentCount} ranges of about the same size,
+     * {@code total} is -1 if the length is unknown, which allows a single range only.
+     */
+    static CocosDownloadJournal create(File tempFile, long total, String etag, String lastModified, int segmentCount) {
+        if (total < 0) {
+            segmentCount = 1;
+        }
+        long[] starts = new long[segmentCount];
+        long[] ends = new long[segmentCount];
+        long segmentSize = total < 0 ? 0 : (total + segmentCount - 1) / segmentCount;
+        for (int i = 0; i < segmentCount; i++) {
+            starts[i] = i * segmentSize;
+            ends[i] = total < 0 ? -1 : Math.min(starts[i] + segmentSize, total) - 1;
+        }
+        return new CocosDownloadJournal(getFile(tempFile), total, etag == null ? "" : etag,
+                lastModified == null ? "" : lastModified, starts, ends, new long[segmentCount], true);
+    }
+
+    /**
+     * Returns null if the temp file has no journal, or the journal can't be trusted. An untrusted
+     * journal is deleted, the download starts over then.
+     */
+    static CocosDownloadJournal load(File tempFile) {
+        File file = getFile(tempFile);
+        if (!file.isFile()) return null;
+
+        CocosDownloadJournal journal = null;
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new FileInputStream(file));
+            if (in.readInt() == JOURNAL_MAGIC && in.readInt() == JOURNAL_VERSION) {
+                long total = in.readLong();
+                String etag = in.readUTF();
+                String lastModified = in.readUTF();
+                int count = in.readInt();
+                if (count > 0 && (total >= 0 || count == 1)) {
+                    long[] starts = new long[count];
+                    long[] ends = new long[count];
+                    long[] validated = new long[count];
+                    boolean valid = true;
+                    for (int i = 0; i < count && valid; i++) {
+                        starts[i] = in.readLong();
+                        ends[i] = in.readLong();
+                        validated[i] = in.readLong();
+                        valid = starts[i] >= 0 && validated[i] >= 0 &&
+                                (ends[i] < 0 ? total < 0 : ends[i] < total && validated[i] <= ends[i] - starts[i] + 1);
+                    }
+                    if (valid && tempFile.isFile()) {
+                        journal = new CocosDownloadJournal(file, total, etag, lastModified, starts, ends, validated, false);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Can't read journal " + file.getPath() + ": " + e.toString());
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException e) {
+                    Log.e(TAG, e.toString());
+                }
+            }
+        }
+
+        if (journal == null) {
+            file.delete();
+        }
+        return journal;
+    }
+
+    long getTotal() {
+        return _total;
+    }
+
+    int getSegmentCount() {
+        return _starts.length;
+    }
+
+    long getStart(int index) {
+        return _starts[index];
+    }
+
+    long getEnd(int index) {
+        return _ends[index];
+    }
+
+    long getValidated(int index) {
+        return _validated[index];
+    }
+
+    // Value for If-Range, null if the response had no validator.
+    String getValidator() {
+        if (!_etag.isEmpty() && !_etag.startsWith("W/")) return _etag;
+        if (!_lastModified.isEmpty()) return _lastModified;
+        return null;
+    }
+
+    synchronized void open() throws IOException {
+        _channel = new RandomAccessFile(_file, "rw").getChannel();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(JOURNAL_MAGIC);
+        out.writeInt(JOURNAL_VERSION);
+        out.writeLong(_total);
+        out.writeUTF(_etag);
+        out.writeUTF(_lastModified);
+        out.writeInt(_starts.length);
+        _recordsOffset = out.size();
+        if (!_created) return;
+
+        for (int i = 0; i < _starts.length; i++) {
+            out.writeLong(_starts[i]);
+            out.writeLong(_ends[i]);
+            out.writeLong(_validated[i]);
+        }
+        out.close();
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+        _channel.truncate(0);
+        while (buffer.hasRemaining()) {
+            _channel.write(buffer, buffer.position());
+        }
+        _channel.force(false);
+    }
+
+    /**
+     * Count bytes written to the temp file, returns true when it's time to {@link #sync}.
+     */
+    synchronized boolean onWritten(long bytes) {
+        _unsyncedBytes += bytes;
+        return _unsyncedBytes >= SYNC_BYTES || SystemClock.uptimeMillis() - _lastSyncTime >= SYNC_INTERVAL_MS;
+    }
+
+    /**
+     * Flush the temp file to disk, then record {@code written} bytes per range as validated.
+     * {@code written} must be read before this is called, so it never exceeds what was flushed.
+     */
+    synchronized void sync(FileChannel dataChannel, long[] written) throws IOException {
+        if (_channel == null) return;
+        dataChannel.force(false);
+        for (int i = 0; i < _validated.length; i++) {
+            if (written[i] == _validated[i]) continue;
+            _validated[i] = written[i];
+            _record.clear();
+            _record.putLong(written[i]).flip();
+            long position = _recordsOffset + (long) i * RECORD_SIZE + 16;
+            while (_record.hasRemaining()) {
+                position += _channel.write(_record, position);
+            }
+        }
+        _channel.force(false);
+        _unsyncedBytes = 0;
+        _lastSyncTime = SystemClock.uptimeMillis();
+    }
+
+    synchronized void close() {
+        if (_channel == null) return;
+        try {
+            _channel.close();
+        } catch (IOException e) {
+            Log.e(TAG, e.toString());
+        }
+        _channel = null;
+    }
+
+    // Called once the download finished or its temp file is dropped.
+    void delete() {
+        close();
+        _file.delete();
+    }
+}
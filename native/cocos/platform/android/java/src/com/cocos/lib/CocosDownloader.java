@@ -25,32 +25,42 @@
 
 package com.cocos.lib;
 
-import android.content.Context;
-import android.content.SharedPreferences;
+import android.os.SystemClock;
 import android.util.Log;
 
 import org.cocos2dx.okhttp3.Call;
 import org.cocos2dx.okhttp3.Callback;
+import org.cocos2dx.okhttp3.ConnectionPool;
 import org.cocos2dx.okhttp3.Dispatcher;
 import org.cocos2dx.okhttp3.OkHttpClient;
+import org.cocos2dx.okhttp3.Protocol;
 import org.cocos2dx.okhttp3.Request;
 import org.cocos2dx.okhttp3.Response;
+import org.cocos2dx.okio.Buffer;
+import org.cocos2dx.okio.BufferedSource;
 
-import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.PrintWriter;
+import java.io.RandomAccessFile;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.util.Iterator;
-import java.util.LinkedList;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
-import java.util.Queue;
+import java.util.PriorityQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 // Rename package okhttp3 to org.cocos2dx.okhttp3
 // Github repo: https://github.com/PatriceJiang/okhttp/tree/cocos2dx-rename-3.12.x
@@ -58,82 +68,348 @@ import java.util.concurrent.TimeUnit;
 
 public class CocosDownloader {
 
+    // Priority classes for download tasks, higher value is scheduled first.
+    // Any int in between is also accepted as a per-task priority.
+    public static final int PRIORITY_LOW = 0;
+    public static final int PRIORITY_NORMAL = 1;
+    public static final int PRIORITY_HIGH = 2;
+    public static final int PRIORITY_CRITICAL = 3;
+
     private int _id;
     private OkHttpClient _httpClient = null;
     private static Dispatcher dispatcher = null;
+    // All downloaders share one client, so they share its connection pool: a burst of small
+    // files to one host reuses a few kept-alive (or HTTP/2 multiplexed) connections instead
+    // of paying a TLS handshake per file.
+    private static OkHttpClient sharedClient = null;
+    private static int maxRequests = 64;
+    private static int maxRequestsPerHost = 16;
+    private static int maxIdleConnections = 8;
+    private static long keepAliveDurationSeconds = 5 * 60;
+    private static boolean http2Enabled = true;
+    // Task setup (uri parsing, file system and journal access, call creation)
+    // runs on this single worker thread instead of the UI thread. It is serial so that
+    // abort/cancel requests keep their order relative to the tasks they target.
+    // Created with the class so that concurrent downloaders share a single instance.
+    private static final ExecutorService taskExecutor = createTaskExecutor();
 
     private String _tempFileNameSuffix;
     private int _countOfMaxProcessingTasks;
     private ConcurrentHashMap<Integer,Call> _taskMap = new ConcurrentHashMap<>();
-    private Queue<Runnable> _taskQueue = new LinkedList<>();
+    private PriorityQueue<PendingTask> _taskQueue = new PriorityQueue<>();
+    private HashMap<Integer, PendingTask> _pendingTaskMap = new HashMap<>();
+    private long _taskSequence = 0;
+    private long _promotedSequence = 0;
     private int _runningTaskCount = 0;
 
-    private void onProgress(final int id, final long downloadBytes, final long downloadNow, final long downloadTotal) {
-        CocosHelper.runOnGameThread(new Runnable() {
-            @Override
-            public void run() {
-                nativeOnProgress(_id, id, downloadBytes, downloadNow, downloadTotal);
+    // Files of at least two segments of _minSegmentSize are fetched over several connections,
+    // disabled while _maxSegmentCount is 1.
+    private int _maxSegmentCount = 1;
+    private long _minSegmentSize = 8 * 1024 * 1024;
+    private ConcurrentHashMap<Integer, CocosSegmentedDownload> _segmentedTaskMap = new ConcurrentHashMap<>();
+    // Running tasks whose content store lookup is still hashing off the task executor, guarded by _taskQueue.
+    private HashSet<Integer> _restoringTaskIds = new HashSet<>();
+
+    private static final int READ_SEGMENT_SIZE = 64 * 1024;
+    private static final int WRITE_BUFFER_SIZE = 256 * 1024;
+    // Progress of a task is reported at most once per interval or per step of bytes.
+    private static final long PROGRESS_REPORT_INTERVAL_MS = 100;
+    private static final long PROGRESS_REPORT_BYTES = 1024 * 1024;
+
+    // Progress accumulated since the last flush on game thread, keyed by task id.
+    private ConcurrentHashMap<Integer, TaskProgress> _progressMap = new ConcurrentHashMap<>();
+    private final AtomicBoolean _progressFlushScheduled = new AtomicBoolean(false);
+    private final Runnable _progressFlushRunnable = new Runnable() {
+        @Override
+        public void run() {
+            flushProgress();
+        }
+    };
+
+    private static class TaskProgress {
+        final AtomicLong pendingBytes = new AtomicLong(0);
+        volatile long downloadNow;
+        volatile long downloadTotal;
+    }
+
+    // Write buffers are reused by OkHttp callback threads, one per thread.
+    static final ThreadLocal<ByteBuffer> sWriteBuffer = new ThreadLocal<ByteBuffer>() {
+        @Override
+        protected ByteBuffer initialValue() {
+            return ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+        }
+    };
+
+    /**
+     * A task waiting for a free processing slot. Tasks with higher priority run first,
+     * tasks with the same priority keep the order they were created in.
+     */
+    private static class PendingTask implements Comparable<PendingTask> {
+        final int id;
+        final Runnable runnable;
+        int priority;
+        long sequence;
+
+        PendingTask(int id, Runnable runnable, int priority, long sequence) {
+            this.id = id;
+            this.runnable = runnable;
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(PendingTask other) {
+            if (priority != other.priority) {
+                return priority > other.priority ? -1 : 1;
             }
-        });
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+
+    /**
+     * Coalesces the progress of a single task, so the game thread receives one callback
+     * per interval instead of one per chunk read from network.
+     */
+    private static class ProgressThrottle {
+        private final CocosDownloader _downloader;
+        private final int _taskId;
+        private final long _total;
+        private long _pendingBytes = 0;
+        private long _lastReportTime = SystemClock.uptimeMillis();
+
+        ProgressThrottle(CocosDownloader downloader, int taskId, long total) {
+            _downloader = downloader;
+            _taskId = taskId;
+            _total = total;
+        }
+
+        void onBytes(long len, long current) {
+            _pendingBytes += len;
+            if (_pendingBytes >= PROGRESS_REPORT_BYTES ||
+                SystemClock.uptimeMillis() - _lastReportTime >= PROGRESS_REPORT_INTERVAL_MS) {
+                flush(current);
+            }
+        }
+
+        void flush(long current) {
+            if (_pendingBytes == 0) return;
+            _downloader.onProgress(_taskId, _pendingBytes, current, _total);
+            _pendingBytes = 0;
+            _lastReportTime = SystemClock.uptimeMillis();
+        }
+    }
+
+    private static int writeFully(FileChannel channel, ByteBuffer buffer, MessageDigest digest) throws IOException {
+        buffer.flip();
+        int size = buffer.remaining();
+        if (digest != null) {
+            digest.update(buffer.duplicate());
+        }
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+        return size;
+    }
+
+    void onProgress(final int id, final long downloadBytes, final long downloadNow, final long downloadTotal) {
+        TaskProgress progress = _progressMap.get(id);
+        if (null == progress) {
+            progress = new TaskProgress();
+            TaskProgress exists = _progressMap.putIfAbsent(id, progress);
+            if (null != exists) {
+                progress = exists;
+            }
+        }
+        progress.downloadNow = downloadNow;
+        progress.downloadTotal = downloadTotal;
+        progress.pendingBytes.addAndGet(downloadBytes);
+        // Only one flush is queued at a time, it picks up every task updated before it runs.
+        if (_progressFlushScheduled.compareAndSet(false, true)) {
+            CocosHelper.runOnGameThread(_progressFlushRunnable, CocosHelper.TASK_LANE_PROGRESS);
+        }
+    }
+
+    // Run on game thread, reports each task with pending bytes to native once.
+    private void flushProgress() {
+        _progressFlushScheduled.set(false);
+        for (Map.Entry<Integer, TaskProgress> entry : _progressMap.entrySet()) {
+            TaskProgress progress = entry.getValue();
+            long downloadBytes = progress.pendingBytes.getAndSet(0);
+            if (downloadBytes > 0) {
+                nativeOnProgress(_id, entry.getKey(), downloadBytes, progress.downloadNow, progress.downloadTotal);
+            }
+        }
+    }
+
+    void onFinish(final int id, final int errCode, final String errStr, final byte[] data) {
+        synchronized (_taskQueue) {
+            // finishing races with abort, whoever removes the task first releases its slot
+            Call task = _taskMap.remove(id);
+            CocosSegmentedDownload segmentedTask = _segmentedTaskMap.remove(id);
+            if (null == task && null == segmentedTask) return;
+            _runningTaskCount -= 1;
+        }
+        reportFinish(id, errCode, errStr, data);
+    }
+
+    // Release the processing slot of a running task which was never put in the task maps, and report it to native.
+    private void finishTask(final int id, final int errCode, final String errStr, final byte[] data) {
+        synchronized (_taskQueue) {
+            _runningTaskCount -= 1;
+        }
+        reportFinish(id, errCode, errStr, data);
     }
 
-    private void onFinish(final int id, final int errCode, final String errStr, final byte[] data) {
-        Call task =_taskMap.get(id);
-        if (null == task) return;
-        _taskMap.remove(id);
-        _runningTaskCount -= 1;
-        CocosHelper.runOnGameThread(new Runnable() {
+    private final class FinishRecord extends CocosEventPool.Record {
+        int id;
+        int errCode;
+        String errStr;
+        byte[] data;
+
+        @Override
+        void handle() {
+            // Progress runs in a lower lane and may not be flushed yet, report it first.
+            TaskProgress progress = _progressMap.remove(id);
+            if (progress != null) {
+                long downloadBytes = progress.pendingBytes.getAndSet(0);
+                if (downloadBytes > 0) {
+                    nativeOnProgress(_id, id, downloadBytes, progress.downloadNow, progress.downloadTotal);
+                }
+            }
+            nativeOnFinish(_id, id, errCode, errStr, data);
+        }
+
+        @Override
+        void reset() {
+            errStr = null;
+            data = null;
+        }
+    }
+
+    private final CocosEventPool<FinishRecord> _finishPool = new CocosEventPool<>(new CocosEventPool.Factory<FinishRecord>() {
+        @Override
+        public FinishRecord create() {
+            return new FinishRecord();
+        }
+    });
+
+    // The only place a finished task starts the next one, after its slot was released.
+    private void reportFinish(final int id, final int errCode, final String errStr, final byte[] data) {
+        FinishRecord record = _finishPool.obtain();
+        record.id = id;
+        record.errCode = errCode;
+        record.errStr = errStr;
+        record.data = data;
+        CocosHelper.runOnGameThread(record);
+        runNextTaskIfExists();
+    }
+
+    private static ExecutorService createTaskExecutor() {
+        // The worker thread is only started by the first task and exits when idle.
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
             @Override
-            public void run() {
-                nativeOnFinish(_id, id, errCode, errStr, data);
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "CocosDownloader");
+                thread.setDaemon(true);
+                return thread;
             }
         });
-        runNextTaskIfExists();
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
     }
 
     public static CocosDownloader createDownloader(int id, int timeoutInSeconds, String tempFileSuffix, int maxProcessingTasks) {
         CocosDownloader downloader = new CocosDownloader();
         downloader._id = id;
 
-        if(dispatcher == null) {
-            dispatcher = new Dispatcher();
-        }
-
+        OkHttpClient client = getSharedClient();
         if (timeoutInSeconds > 0) {
-            downloader._httpClient = new OkHttpClient().newBuilder()
-                    .dispatcher(dispatcher)
-                    .followRedirects(true)
-                    .followSslRedirects(true)
+            // A derived client keeps the dispatcher and connection pool of the shared one.
+            downloader._httpClient = client.newBuilder()
                     .connectTimeout(timeoutInSeconds, TimeUnit.SECONDS)
                     .build();
         } else {
-            downloader._httpClient = new OkHttpClient().newBuilder()
-                    .dispatcher(dispatcher)
-                    .followRedirects(true)
-                    .followSslRedirects(true)
-                    .build();
+            downloader._httpClient = client;
         }
 
-
         downloader._tempFileNameSuffix = tempFileSuffix;
         downloader._countOfMaxProcessingTasks = maxProcessingTasks;
         return downloader;
     }
 
     public static void createTask(final CocosDownloader downloader, int id_, String url_, String path_, String []header_) {
-        final int id = id_;
-        final String url = url_;
-        final String path = path_;
-        final String pathWithUrlHash = path + url.hashCode();
+        createTask(downloader, id_, url_, path_, header_, PRIORITY_NORMAL);
+    }
+
+    public static void createTask(final CocosDownloader downloader, int id_, String url_, String path_, String []header_, int priority) {
+        // The expected digest of content is passed as a header, strip it from the request.
+        String[] header = header_;
+        String contentDigest = null;
+        int digestIndex = findContentDigest(header_);
+        if (digestIndex >= 0) {
+            contentDigest = CocosContentStore.normalizeDigest(header_[digestIndex + 1]);
+            header = removeHeader(header_, digestIndex);
+        }
+        downloader.enqueueTask(id_, newTaskRunnable(downloader, id_, url_, path_, header, contentDigest), priority);
+    }
+
+    /**
+     * Create many tasks in one call, e.g. all files of a manifest diff. The tasks share
+     * {@code header_}, {@code digests_} holds the expected SHA-256 of each file and may be
+     * null, as may any of its entries.
+     */
+    public static void createTasks(final CocosDownloader downloader, int[] ids_, String[] urls_, String[] paths_,
+                                   String[] header_, String[] digests_, int priority) {
+        String[] header = header_;
+        String sharedDigest = null;
+        int digestIndex = findContentDigest(header_);
+        if (digestIndex >= 0) {
+            sharedDigest = CocosContentStore.normalizeDigest(header_[digestIndex + 1]);
+            header = removeHeader(header_, digestIndex);
+        }
+
+        Runnable[] taskRunnables = new Runnable[ids_.length];
+        for (int i = 0; i < ids_.length; i++) {
+            String contentDigest = sharedDigest;
+            if (digests_ != null && digests_[i] != null) {
+                contentDigest = CocosContentStore.normalizeDigest(digests_[i]);
+            }
+            taskRunnables[i] = newTaskRunnable(downloader, ids_[i], urls_[i], paths_[i], header, contentDigest);
+        }
+        downloader.enqueueTasks(ids_, taskRunnables, priority);
+    }
+
+    // Index of the content digest name in a header array, -1 if there is none.
+    private static int findContentDigest(String[] header) {
+        for (int i = 0; i < header.length / 2; i++) {
+            if (CocosContentStore.CONTENT_DIGEST_HEADER.equalsIgnoreCase(header[i * 2])) {
+                return i * 2;
+            }
+        }
+        return -1;
+    }
+
+    private static String[] removeHeader(String[] header, int index) {
+        String[] result = new String[header.length - 2];
+        System.arraycopy(header, 0, result, 0, index);
+        System.arraycopy(header, index + 2, result, index, header.length - index - 2);
+        return result;
+    }
+
+    private static Runnable newTaskRunnable(final CocosDownloader downloader, final int id, final String url, final String path,
+                                            final String[] header, final String contentDigest) {
+        final String pathWithUrlHash = path + CocosContentStore.urlKey(url);
         final String tempFilePath = pathWithUrlHash + downloader._tempFileNameSuffix;
-        final String[] header = header_;
 
-        Runnable taskRunnable = new Runnable() {
+        return new Runnable() {
             String domain = null;
-            String host = null;
             File tempFile = null;
             File finalFile = null;
+            CocosDownloadJournal journal = null;
             long downloadStart = 0;
+            boolean storeChecked = false;
 
             @Override
             public void run() {
@@ -172,24 +448,32 @@ public class CocosDownloader {
 
                         finalFile = new File(path);
                         if (finalFile.isDirectory()) break;
-                        long fileLen = tempFile.length();
-
-                        host = domain.startsWith("www.") ? domain.substring(4) : domain;
-                        if (fileLen > 0) {
-                            SharedPreferences sharedPreferences = GlobalObject.getActivity().getSharedPreferences("breakpointDownloadSupport", Context.MODE_PRIVATE);
-                            if (sharedPreferences.contains(host) && sharedPreferences.getBoolean(host, false)) {
-                                downloadStart = fileLen;
-                            } else {
-                                // Remove previous downloaded context
-                                try {
-                                    PrintWriter writer = new PrintWriter(tempFile);
-                                    writer.print("");
-                                    writer.close();
-                                }
-                                // Not found then nothing to do
-                                catch (FileNotFoundException e) {
-                                }
+
+                        // Same content was downloaded before, maybe from another url.
+                        if (contentDigest != null && !storeChecked) {
+                            downloader.restoreFromStore(id, contentDigest, finalFile, this);
+                            storeChecked = true;
+                            break;
+                        }
+
+                        // Resume from what the journal of the temp file validated, never from its raw length.
+                        // Without a journal the temp file is truncated when the response arrives.
+                        journal = CocosDownloadJournal.load(tempFile);
+                        if (null != journal && journal.getSegmentCount() > 1) {
+                            CocosSegmentedDownload segmentedTask = CocosSegmentedDownload.resume(downloader, id, url, header, tempFile, finalFile, journal);
+                            if (null != segmentedTask) {
+                                segmentedTask.setContentDigest(contentDigest);
+                                downloader._segmentedTaskMap.put(id, segmentedTask);
+                                segmentedTask.start(downloader._httpClient, null);
+                                break;
                             }
+                            journal.delete();
+                            journal = null;
+                        } else if (null != journal && journal.getValidated(0) > 0 && tempFile.length() >= journal.getValidated(0)) {
+                            downloadStart = journal.getValidated(0);
+                        } else if (null != journal) {
+                            journal.delete();
+                            journal = null;
                         }
                     }
 
@@ -199,6 +483,14 @@ public class CocosDownloader {
                     }
                     if (downloadStart > 0) {
                         builder.addHeader("RANGE", "bytes=" + downloadStart + "-");
+                        // Server sends the whole file instead if it changed since the journal was written.
+                        String validator = journal.getValidator();
+                        if (validator != null) {
+                            builder.addHeader("If-Range", validator);
+                        }
+                    } else if (path.length() > 0 && downloader._maxSegmentCount > 1) {
+                        // Probe range support and full length, the response is reused as first segment.
+                        builder.addHeader("RANGE", "bytes=0-");
                     }
 
                     final Request request = builder.build();
@@ -222,9 +514,9 @@ public class CocosDownloader {
 
                         @Override
                         public void onResponse(Call call, Response response) throws IOException {
-                            InputStream is = null;
-                            byte[] buf = new byte[4096];
-                            FileOutputStream fos = null;
+                            BufferedSource source = null;
+                            FileChannel channel = null;
+                            long writtenBytes = 0;
 
                             try {
 
@@ -235,45 +527,94 @@ public class CocosDownloader {
                                         if (file.exists() && file.isFile()) {
                                             file.delete();
                                         }
+                                        CocosDownloadJournal.getFile(file).delete();
                                     }
                                     downloader.onFinish(id, -2, response.message(), null);
                                     return;
                                 }
 
-                                // save breakpointDownloadSupport Data to SharedPreferences storage
-                                Context context = GlobalObject.getActivity();
-                                SharedPreferences sharedPreferences = context.getSharedPreferences("breakpointDownloadSupport", Context.MODE_PRIVATE);
-                                SharedPreferences.Editor editor = sharedPreferences.edit();
-                                long total = response.body().contentLength() + downloadStart;
-                                if (path.length() > 0 && !sharedPreferences.contains(host)) {
-                                    if (total > 0) {
-                                        editor.putBoolean(host, true);
-                                    } else {
-                                        editor.putBoolean(host, false);
+                                if (response.code() == 206 && downloadStart == 0 && path.length() > 0) {
+                                    int segmentCount = downloader.getSegmentCount(response.header("Content-Range"));
+                                    if (segmentCount > 1) {
+                                        long fullLength = parseContentRangeLength(response.header("Content-Range"));
+                                        CocosSegmentedDownload segmentedTask = CocosSegmentedDownload.create(downloader, id, url, header, tempFile, finalFile,
+                                                fullLength, segmentCount, response.header("ETag"), response.header("Last-Modified"));
+                                        segmentedTask.setContentDigest(contentDigest);
+                                        synchronized (downloader._taskQueue) {
+                                            // abort may have claimed the task since the response arrived
+                                            if (downloader._taskMap.get(id) != call) {
+                                                segmentedTask = null;
+                                            } else {
+                                                downloader._segmentedTaskMap.put(id, segmentedTask);
+                                            }
+                                        }
+                                        if (null == segmentedTask) {
+                                            response.close();
+                                            return;
+                                        }
+                                        segmentedTask.start(downloader._httpClient, response);
+                                        return;
                                     }
-                                    editor.commit();
                                 }
 
-                                long current = downloadStart;
-                                is = response.body().byteStream();
+                                // Anything but 206 to a resume request carries the whole file, write it from start.
+                                long start = response.code() == 206 ? downloadStart : 0;
+                                long total = response.body().contentLength() + start;
+
+                                long current = start;
+                                source = response.body().source();
+                                ProgressThrottle progress = new ProgressThrottle(downloader, id, total);
 
                                 if (path.length() > 0) {
-                                    if (downloadStart > 0) {
-                                        fos = new FileOutputStream(tempFile, true);
-                                    } else {
-                                        fos = new FileOutputStream(tempFile, false);
+                                    if (start == 0 || journal == null) {
+                                        if (journal != null) {
+                                            journal.delete();
+                                        }
+                                        long length = response.body().contentLength();
+                                        journal = CocosDownloadJournal.create(tempFile, length >= 0 ? length : -1,
+                                                response.header("ETag"), response.header("Last-Modified"), 1);
+                                    }
+                                    journal.open();
+                                    // Bytes past the validated offset may be garbage left by a crash.
+                                    channel = new RandomAccessFile(tempFile, "rw").getChannel();
+                                    channel.truncate(start);
+                                    channel.position(start);
+                                    writtenBytes = start;
+                                    ByteBuffer writeBuffer = sWriteBuffer.get();
+                                    writeBuffer.clear();
+                                    MessageDigest digest = null;
+                                    if (contentDigest != null) {
+                                        digest = CocosContentStore.newDigest();
+                                        if (start > 0) {
+                                            CocosContentStore.update(digest, tempFile, start);
+                                        }
                                     }
 
                                     int len;
-                                    while ((len = is.read(buf)) != -1) {
+                                    while ((len = source.read(writeBuffer)) != -1) {
                                         current += len;
-                                        fos.write(buf, 0, len);
-                                        downloader.onProgress(id, len, current, total);
+                                        if (!writeBuffer.hasRemaining()) {
+                                            writtenBytes += writeFully(channel, writeBuffer, digest);
+                                            if (journal.onWritten(WRITE_BUFFER_SIZE)) {
+                                                journal.sync(channel, new long[]{writtenBytes});
+                                            }
+                                        }
+                                        progress.onBytes(len, current);
                                     }
-                                    fos.flush();
+                                    writtenBytes += writeFully(channel, writeBuffer, digest);
+                                    progress.flush(current);
+                                    channel.close();
+                                    channel = null;
 
                                     String errStr = null;
                                     do {
+                                        if (digest != null && !contentDigest.equals(CocosContentStore.toHex(digest.digest()))) {
+                                            // corrupted, don't resume from it either
+                                            tempFile.delete();
+                                            journal.delete();
+                                            errStr = "Content digest mismatch:" + url;
+                                            break;
+                                        }
                                         // rename temp file to final file, if final file exist, remove it
                                         if (finalFile.exists()) {
                                             if (finalFile.isDirectory()) {
@@ -285,46 +626,54 @@ public class CocosDownloader {
                                             }
                                         }
                                         tempFile.renameTo(finalFile);
+                                        journal.delete();
+                                        if (digest != null) {
+                                            CocosContentStore.store(contentDigest, finalFile);
+                                        }
                                     } while (false);
 
                                     if (errStr == null) {
                                         downloader.onFinish(id, 0, null, null);
-                                        downloader.runNextTaskIfExists();
                                     } else {
                                         downloader.onFinish(id, 0, errStr, null);
                                     }
-                                    if (sharedPreferences.contains(host)) {
-                                        editor.remove(host);
-                                        editor.commit();
-                                    }
                                 } else {
-                                    // non-file
-                                    ByteArrayOutputStream buffer;
-                                    if(total > 0) {
-                                        buffer = new ByteArrayOutputStream((int) total);
-                                    } else {
-                                        buffer = new ByteArrayOutputStream(4096);
-                                    }
+                                    // non-file, okio moves whole segments into the buffer without copying
+                                    Buffer buffer = new Buffer();
 
-                                    int len;
-                                    while ((len = is.read(buf)) != -1) {
+                                    long len;
+                                    while ((len = source.read(buffer, READ_SEGMENT_SIZE)) != -1) {
                                         current += len;
-                                        buffer.write(buf, 0, len);
-                                        downloader.onProgress(id, len, current, total);
+                                        progress.onBytes(len, current);
+                                    }
+                                    progress.flush(current);
+                                    if (contentDigest != null && !contentDigest.equals(buffer.sha256().hex())) {
+                                        downloader.onFinish(id, 0, "Content digest mismatch:" + url, null);
+                                        return;
                                     }
-                                    downloader.onFinish(id, 0, null, buffer.toByteArray());
-                                    downloader.runNextTaskIfExists();
+                                    downloader.onFinish(id, 0, null, buffer.readByteArray());
                                 }
                             } catch (IOException e) {
                                 e.printStackTrace();
+                                // keep what reached the disk for the next attempt
+                                if (channel != null && journal != null) {
+                                    try {
+                                        journal.sync(channel, new long[]{writtenBytes});
+                                    } catch (IOException syncException) {
+                                        Log.e("CocosDownloader", syncException.toString());
+                                    }
+                                }
                                 downloader.onFinish(id, 0, e.toString(), null);
                             } finally {
+                                if (journal != null) {
+                                    journal.close();
+                                }
                                 try {
-                                    if (is != null) {
-                                        is.close();
+                                    if (source != null) {
+                                        source.close();
                                     }
-                                    if (fos != null) {
-                                        fos.close();
+                                    if (channel != null) {
+                                        channel.close();
                                     }
                                 } catch (IOException e) {
                                     Log.e("CocosDownloader", e.toString());
@@ -335,31 +684,181 @@ public class CocosDownloader {
                 } while (false);
             }
         };
-        downloader.enqueueTask(taskRunnable);
     }
 
-    public static void abort(final CocosDownloader downloader, final int id) {
-        GlobalObject.getActivity().runOnUiThread(new Runnable() {
+    // Restoring hashes the stored file, which may be large, so it runs on the OkHttp dispatcher
+    // threads instead of blocking the serial task executor. The task setup resumes on the task
+    // executor unless the content was restored or the task was aborted meanwhile.
+    private void restoreFromStore(final int id, final String contentDigest, final File finalFile, final Runnable setup) {
+        synchronized (_taskQueue) {
+            _restoringTaskIds.add(id);
+        }
+        _httpClient.dispatcher().executorService().execute(new Runnable() {
             @Override
             public void run() {
-                Iterator iter = downloader._taskMap.entrySet().iterator();
-                while (iter.hasNext()) {
-                    Map.Entry entry = (Map.Entry) iter.next();
-                    Object key = entry.getKey();
-                    Call task = (Call) entry.getValue();
-                    if (null != task && Integer.parseInt(key.toString()) == id) {
-                        task.cancel();
-                        downloader._taskMap.remove(id);
-                        downloader.runNextTaskIfExists();
-                        break;
+                final boolean restored = CocosContentStore.restore(contentDigest, finalFile);
+                taskExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        synchronized (_taskQueue) {
+                            // abort already released the slot
+                            if (!_restoringTaskIds.remove(id)) return;
+                        }
+                        if (restored) {
+                            finishTask(id, 0, null, null);
+                        } else {
+                            setup.run();
+                        }
                     }
+                });
+            }
+        });
+    }
+
+    private static synchronized OkHttpClient getSharedClient() {
+        if (sharedClient == null) {
+            if (dispatcher == null) {
+                dispatcher = new Dispatcher();
+            }
+            dispatcher.setMaxRequests(maxRequests);
+            dispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
+            OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                    .dispatcher(dispatcher)
+                    .connectionPool(new ConnectionPool(maxIdleConnections, keepAliveDurationSeconds, TimeUnit.SECONDS))
+                    .followRedirects(true)
+                    .followSslRedirects(true);
+            if (http2Enabled) {
+                // HTTP/2 is negotiated over TLS by ALPN, plain http stays on HTTP/1.1.
+                builder.protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1));
+            } else {
+                builder.protocols(Collections.singletonList(Protocol.HTTP_1_1));
+            }
+            sharedClient = builder.build();
+        }
+        return sharedClient;
+    }
+
+    /**
+     * Tune the client shared by all downloaders. Values <= 0 keep the current setting.
+     * Request limits apply at once, the connection pool and protocols apply to downloaders
+     * created afterwards, the pool of the previous client is released when it goes idle.
+     */
+    public static synchronized void setConnectionConfig(int maxRequests_, int maxRequestsPerHost_, int maxIdleConnections_,
+                                                        long keepAliveDurationSeconds_, boolean http2Enabled_) {
+        if (maxRequests_ > 0) maxRequests = maxRequests_;
+        if (maxRequestsPerHost_ > 0) maxRequestsPerHost = maxRequestsPerHost_;
+        if (dispatcher != null) {
+            dispatcher.setMaxRequests(maxRequests);
+            dispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
+        }
+
+        boolean poolChanged = (maxIdleConnections_ > 0 && maxIdleConnections_ != maxIdleConnections) ||
+                (keepAliveDurationSeconds_ > 0 && keepAliveDurationSeconds_ != keepAliveDurationSeconds) ||
+                http2Enabled_ != http2Enabled;
+        if (maxIdleConnections_ > 0) maxIdleConnections = maxIdleConnections_;
+        if (keepAliveDurationSeconds_ > 0) keepAliveDurationSeconds = keepAliveDurationSeconds_;
+        http2Enabled = http2Enabled_;
+        if (poolChanged && sharedClient != null) {
+            sharedClient.connectionPool().evictAll();
+            sharedClient = null;
+        }
+    }
+
+    // Enable fetching large files over several ranged connections, pass 1 to disable.
+    // Called from native with the segment settings of DownloaderHints.
+    public static void setSegmentedDownload(final CocosDownloader downloader, int maxSegmentCount, long minSegmentSize) {
+        downloader._maxSegmentCount = Math.max(1, maxSegmentCount);
+        if (minSegmentSize > 0) {
+            downloader._minSegmentSize = minSegmentSize;
+        }
+    }
+
+    // Bound the disk space of the content store, least recently used files go first. <= 0 restores the default.
+    public static void setContentStoreMaxSize(long bytes) {
+        CocosContentStore.setMaxSize(bytes);
+    }
+
+    // Content-Range is in form of "bytes 0-1023/4096", returns -1 if the full length is unknown.
+    private static long parseContentRangeLength(String contentRange) {
+        if (contentRange == null) return -1;
+        int slash = contentRange.lastIndexOf('/');
+        if (slash < 0) return -1;
+        try {
+            return Long.parseLong(contentRange.substring(slash + 1).trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private int getSegmentCount(String contentRange) {
+        if (_maxSegmentCount <= 1) return 1;
+        long fullLength = parseContentRangeLength(contentRange);
+        if (fullLength <= 0) return 1;
+        return (int) Math.min(_maxSegmentCount, fullLength / _minSegmentSize);
+    }
+
+    // Change the priority of a task which is still waiting in queue,
+    // has no effect once the task is running.
+    public static void setTaskPriority(final CocosDownloader downloader, final int id, final int priority) {
+        synchronized (downloader._taskQueue) {
+            PendingTask pendingTask = downloader._pendingTaskMap.get(id);
+            if (null == pendingTask || pendingTask.priority == priority) return;
+            downloader._taskQueue.remove(pendingTask);
+            pendingTask.priority = priority;
+            downloader._taskQueue.add(pendingTask);
+        }
+    }
+
+    // Move a waiting task ahead of every other waiting task of critical priority,
+    // so it is the next one to run.
+    public static void promoteTask(final CocosDownloader downloader, final int id) {
+        synchronized (downloader._taskQueue) {
+            PendingTask pendingTask = downloader._pendingTaskMap.get(id);
+            if (null == pendingTask) return;
+            downloader._taskQueue.remove(pendingTask);
+            pendingTask.priority = Math.max(pendingTask.priority, PRIORITY_CRITICAL);
+            pendingTask.sequence = --downloader._promotedSequence;
+            downloader._taskQueue.add(pendingTask);
+        }
+    }
+
+    public static void abort(final CocosDownloader downloader, final int id) {
+        synchronized (downloader._taskQueue) {
+            // Task is not started yet, drop it from queue directly.
+            PendingTask pendingTask = downloader._pendingTaskMap.remove(id);
+            if (null != pendingTask) {
+                downloader._taskQueue.remove(pendingTask);
+                return;
+            }
+        }
+        taskExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                Call task;
+                CocosSegmentedDownload segmentedTask;
+                synchronized (downloader._taskQueue) {
+                    // the same claim as onFinish, so a task finishing meanwhile isn't released twice
+                    task = downloader._taskMap.remove(id);
+                    segmentedTask = downloader._segmentedTaskMap.remove(id);
+                    boolean restoring = downloader._restoringTaskIds.remove(id);
+                    if (null == task && null == segmentedTask && !restoring) return;
+                    downloader._runningTaskCount -= 1;
+                }
+                // onFinish ignores the cancelled task, its slot is released above
+                if (null != segmentedTask) {
+                    segmentedTask.cancel();
+                }
+                if (null != task) {
+                    task.cancel();
                 }
+                downloader._progressMap.remove(id);
+                downloader.runNextTaskIfExists();
             }
         });
     }
 
     public static void cancelAllRequests(final CocosDownloader downloader) {
-        GlobalObject.getActivity().runOnUiThread(new Runnable() {
+        taskExecutor.execute(new Runnable() {
             @Override
             public void run() {
                 for (Object o : downloader._taskMap.entrySet()) {
@@ -369,18 +868,39 @@ public class CocosDownloader {
                         task.cancel();
                     }
                 }
+                for (CocosSegmentedDownload segmentedTask : downloader._segmentedTaskMap.values()) {
+                    segmentedTask.cancel();
+                }
             }
         });
     }
 
 
-    private void enqueueTask(Runnable taskRunnable) {
+    private void enqueueTask(int id, Runnable taskRunnable, int priority) {
         synchronized (_taskQueue) {
             if (_runningTaskCount < _countOfMaxProcessingTasks) {
-                GlobalObject.getActivity().runOnUiThread(taskRunnable);
+                taskExecutor.execute(taskRunnable);
                 _runningTaskCount++;
             } else {
-                _taskQueue.add(taskRunnable);
+                PendingTask pendingTask = new PendingTask(id, taskRunnable, priority, _taskSequence++);
+                _taskQueue.add(pendingTask);
+                _pendingTaskMap.put(id, pendingTask);
+            }
+        }
+    }
+
+    // Same as enqueueTask for every task, the queue is locked once for the whole batch.
+    private void enqueueTasks(int[] ids, Runnable[] taskRunnables, int priority) {
+        synchronized (_taskQueue) {
+            for (int i = 0; i < ids.length; i++) {
+                if (_runningTaskCount < _countOfMaxProcessingTasks) {
+                    taskExecutor.execute(taskRunnables[i]);
+                    _runningTaskCount++;
+                } else {
+                    PendingTask pendingTask = new PendingTask(ids[i], taskRunnables[i], priority, _taskSequence++);
+                    _taskQueue.add(pendingTask);
+                    _pendingTaskMap.put(ids[i], pendingTask);
+                }
             }
         }
     }
@@ -390,8 +910,9 @@ public class CocosDownloader {
             while (_runningTaskCount < _countOfMaxProcessingTasks &&
                 CocosDownloader.this._taskQueue.size() > 0) {
 
-                Runnable taskRunnable = CocosDownloader.this._taskQueue.poll();
-                GlobalObject.getActivity().runOnUiThread(taskRunnable);
+                PendingTask pendingTask = CocosDownloader.this._taskQueue.poll();
+                _pendingTaskMap.remove(pendingTask.id);
+                taskExecutor.execute(pendingTask.runnable);
                 _runningTaskCount += 1;
             }
         }
@@ -0,0 +1,102 @@
+/****************************************************************************
+ Copyright (c) 2022 Xiamen Yaji Software Co., Ltd.
+
+ http://www.cocos.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated engine source code (the "Software"), a limited,
+ worldwide, royalty-free, non-assignable, revocable and non-exclusive license
+ to use Cocos Creator solely to develop games on your target platforms. You shall
+ not use Cocos Creator software for developing other software or tools that's
+ used for developing games. You are not granted to publish, distribute,
+ sublicense, and/or sell copies of Cocos Creator.
+
+ The software or tools in this License Agreement are licensed, not sold.
+ Xiamen Yaji Software Co., Ltd. reserves all rights not expressly granted to you.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ****************************************************************************/
+
+package com.cocos.lib;
+
+/**
+ * Pool of typed records posted to the game thread instead of anonymous runnables. A producer
+ * obtains a record, fills its primitive fields and posts it, the record returns to the pool
+ * once it ran. After warming up, a steady stream of events allocates nothing.
+ */
+class CocosEventPool<T extends CocosEventPool.Record> {
+    private static final int DEFAULT_MAX_FREE = 64;
+
+    abstract static class Record implements Runnable {
+        private CocosEventPool<?> mPool = null;
+
+        @Override
+        public final void run() {
+            try {
+                handle();
+            } finally {
+                reset();
+                if (mPool != null) {
+                    mPool.recycle(this);
+                }
+            }
+        }
+
+        // Deliver the event, called on game thread.
+        abstract void handle();
+
+        // Drop object references before the record goes back to the pool.
+        void reset() {}
+    }
+
+    interface Factory<T> {
+        T create();
+    }
+
+    private final Factory<T> mFactory;
+    private final Record[] mFree;
+    private int mFreeCount = 0;
+    private volatile long mCreatedCount = 0;
+
+    CocosEventPool(Factory<T> factory) {
+        this(factory, DEFAULT_MAX_FREE);
+    }
+
+    CocosEventPool(Factory<T> factory, int maxFree) {
+        mFactory = factory;
+        mFree = new Record[maxFree];
+    }
+
+    @SuppressWarnings("unchecked")
+    T obtain() {
+        synchronized (this) {
+            if (mFreeCount > 0) {
+                Record record = mFree[--mFreeCount];
+                mFree[mFreeCount] = null;
+                return (T) record;
+            }
+            mCreatedCount++;
+        }
+        T record = mFactory.create();
+        ((Record) record).mPool = this;
+        return record;
+    }
+
+    private synchronized void recycle(Record record) {
+        // Records beyond the bound, created during a burst, are left to GC.
+        if (mFreeCount < mFree.length) {
+            mFree[mFreeCount++] = record;
+        }
+    }
+
+    // Records allocated so far, it stops growing once the pool covers the event rate.
+    long getCreatedCount() {
+        return mCreatedCount;
+    }
+}
@@ -59,10 +59,8 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
-import java.util.Queue;
 import java.util.concurrent.locks.ReentrantLock;
 
 
@@ -90,28 +88,21 @@ public class CocosHelper {
     // The OBB file
     private static ZipResourceFile sOBBFile = null;
 
-    static class LockedTaskQ {
-        private final Object readMtx = new Object();
-        private Queue<Runnable> sTaskQ = new LinkedList<>();
-        public void addTask(Runnable runnable) {
-            synchronized (readMtx) {
-                sTaskQ.add(runnable);
-            }
-        }
-        public void runTasks(){
-            Queue<Runnable> tmp;
-            synchronized (readMtx) {
-                tmp = sTaskQ;
-                sTaskQ = new LinkedList<>();
-            }
-            for(Runnable runnable : tmp){
-                runnable.run();
-            }
-        }
-    }
-
-    private static LockedTaskQ sTaskQOnGameThread = new LockedTaskQ();
-    private static LockedTaskQ sForegroundTaskQOnGameThread = new LockedTaskQ();
+    // Lanes of game thread tasks, a flush drains them in this order.
+    public static final int TASK_LANE_INPUT = 0;
+    public static final int TASK_LANE_DEFAULT = 1;
+    public static final int TASK_LANE_PROGRESS = 2;
+    private static final int TASK_LANE_COUNT = 3;
+
+    private static CocosTaskQueue[] sTaskQOnGameThread = createTaskLanes();
+    private static CocosTaskQueue[] sForegroundTaskQOnGameThread = createTaskLanes();
+    // Tasks run per flush of each lane, the rest is carried to the next frame.
+    private static volatile int sMaxTasksPerFlush = Integer.MAX_VALUE;
+    // Time the lanes after input may take per frame, 0 for no limit.
+    private static volatile long sTaskBudgetNanos = 0;
+    // Only accessed on game thread.
+    private static long sFrameDeadlineNanos = Long.MAX_VALUE;
+    private static boolean sFrameStarted = false;
     /**
      * Battery receiver to getting battery level.
      */
@@ -145,18 +136,79 @@ public class CocosHelper {
 
     //Run on game thread forever, no matter foreground or background
     public static void runOnGameThread(final Runnable runnable) {
-        sTaskQOnGameThread.addTask(runnable);
+        sTaskQOnGameThread[TASK_LANE_DEFAULT].addTask(runnable);
+    }
+
+    public static void runOnGameThread(final Runnable runnable, int lane) {
+        sTaskQOnGameThread[lane].addTask(runnable);
     }
 
     static void flushTasksOnGameThread() {
-        sTaskQOnGameThread.runTasks();
+        // Runs every frame after the foreground flush, if any, which already started the budget.
+        beginFrame();
+        runTaskLanes(sTaskQOnGameThread);
+        sFrameStarted = false;
     }
     public static void runOnGameThreadAtForeground(final Runnable runnable) {
-        sForegroundTaskQOnGameThread.addTask(runnable);
+        sForegroundTaskQOnGameThread[TASK_LANE_DEFAULT].addTask(runnable);
+    }
+
+    public static void runOnGameThreadAtForeground(final Runnable runnable, int lane) {
+        sForegroundTaskQOnGameThread[lane].addTask(runnable);
     }
 
     static void flushTasksOnGameThreadAtForeground() {
-        sForegroundTaskQOnGameThread.runTasks();
+        beginFrame();
+        runTaskLanes(sForegroundTaskQOnGameThread);
+    }
+
+    // The first flush of a frame sets the deadline both flushes share.
+    private static void beginFrame() {
+        if (sFrameStarted) return;
+        sFrameStarted = true;
+        long budget = sTaskBudgetNanos;
+        sFrameDeadlineNanos = budget > 0 ? System.nanoTime() + budget : Long.MAX_VALUE;
+    }
+
+    private static CocosTaskQueue[] createTaskLanes() {
+        CocosTaskQueue[] lanes = new CocosTaskQueue[TASK_LANE_COUNT];
+        for (int i = 0; i < TASK_LANE_COUNT; i++) {
+            lanes[i] = new CocosTaskQueue(CocosTaskQueue.DEFAULT_CAPACITY);
+        }
+        return lanes;
+    }
+
+    // Input is never deferred, the other lanes run while the frame has budget left.
+    private static void runTaskLanes(CocosTaskQueue[] lanes) {
+        lanes[TASK_LANE_INPUT].runTasks(sMaxTasksPerFlush, Long.MAX_VALUE);
+        for (int i = TASK_LANE_INPUT + 1; i < TASK_LANE_COUNT; i++) {
+            lanes[i].runTasks(sMaxTasksPerFlush, sFrameDeadlineNanos);
+        }
+    }
+
+    // Bound the tasks run per frame by each lane, <= 0 means no bound.
+    public static void setMaxTasksPerFlush(int maxTasks) {
+        sMaxTasksPerFlush = maxTasks > 0 ? maxTasks : Integer.MAX_VALUE;
+    }
+
+    /**
+     * Limit the time spent per frame running tasks other than input, the remainder is
+     * deferred to the next frame. Each lane still runs one task per frame, so none starves.
+     * Pass 0 to run every task on the frame it is posted for.
+     */
+    public static void setGameThreadTaskBudget(int budgetMicros) {
+        sTaskBudgetNanos = budgetMicros > 0 ? budgetMicros * 1000L : 0;
+    }
+
+    /**
+     * Counters of a lane of the game thread queue, or of the foreground one: tasks posted,
+     * tasks run, tasks posted while the lane was full, tasks left after the last flush, last
+     * and max flush time in nanoseconds. The post rate is the difference of two samples.
+     */
+    public static long[] getGameThreadTaskStats(boolean foreground, int lane) {
+        long[] stats = new long[6];
+        (foreground ? sForegroundTaskQOnGameThread : sTaskQOnGameThread)[lane].getStats(stats);
+        return stats;
     }
 
     public static int getNetworkType() {
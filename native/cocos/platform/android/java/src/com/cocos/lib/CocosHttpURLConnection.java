@@ -28,7 +28,6 @@ package com.cocos.lib;
 import android.util.Log;
 
 import java.io.BufferedInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -51,21 +50,46 @@ import java.util.zip.GZIPInputStream;
 import java.util.zip.InflaterInputStream;
 
 import javax.net.ssl.HttpsURLConnection;
-import javax.net.ssl.SSLContext;
-import javax.net.ssl.TrustManagerFactory;
 
 public class CocosHttpURLConnection
 {
     private static String TAG = "CocosHttpURLConnection";
     private static final String POST_METHOD = "POST" ;
     private static final String PUT_METHOD = "PUT" ;
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    // Reused by every response read on the thread, requests run on a few network threads.
+    private static final ThreadLocal<byte[]> sReadBuffer = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[READ_BUFFER_SIZE];
+        }
+    };
+
+    // Send XMLHttpRequests through CocosOkHttpURLConnection instead of the platform connection.
+    private static volatile boolean sUseOkHttp = false;
+
+    private static native void nativeOnResponseData(long handle, byte[] data, int len);
+
+    /**
+     * Switch XMLHttpRequests to a shared OkHttp client, which keeps connections alive across
+     * requests, speaks HTTP/2 and builds the SSL context of a CA file once. Applies to
+     * requests created afterwards. Called from native, see jsb.setXMLHttpRequestUseOkHttp.
+     */
+    public static void setUseOkHttp(boolean useOkHttp) {
+        sUseOkHttp = useOkHttp;
+    }
 
     static HttpURLConnection createHttpURLConnection(String linkURL) {
         URL url;
         HttpURLConnection urlConnection;
         try {
             url = new URL(linkURL);
-            urlConnection = (HttpURLConnection) url.openConnection();
+            if (sUseOkHttp && (url.getProtocol().equals("http") || url.getProtocol().equals("https"))) {
+                urlConnection = new CocosOkHttpURLConnection(url);
+            } else {
+                urlConnection = (HttpURLConnection) url.openConnection();
+            }
             //Accept-Encoding
             urlConnection.setRequestProperty("Accept-Encoding", "identity");
             urlConnection.setDoInput(true);
@@ -96,6 +120,10 @@ public class CocosHttpURLConnection
     }
 
     static void setVerifySSL(HttpURLConnection urlConnection, String sslFilename) {
+        if (urlConnection instanceof CocosOkHttpURLConnection) {
+            ((CocosOkHttpURLConnection) urlConnection).setCaFile(sslFilename);
+            return;
+        }
         if(!(urlConnection instanceof HttpsURLConnection))
             return;
 
@@ -103,41 +131,48 @@ public class CocosHttpURLConnection
         HttpsURLConnection httpsURLConnection = (HttpsURLConnection)urlConnection;
 
         try {
-            InputStream caInput = null;
-            if (sslFilename.startsWith("/")) {
-                caInput = new BufferedInputStream(new FileInputStream(sslFilename));
-            }else {
-                String assetString = "assets/";
-                String assetsfilenameString = sslFilename.substring(assetString.length());
-                caInput = new BufferedInputStream(GlobalObject.getActivity().getAssets().open(assetsfilenameString));
+            httpsURLConnection.setSSLSocketFactory(getSSLContext(sslFilename).socketFactory);
+        } catch (Exception e) {
+            e.printStackTrace();
+            Log.e(TAG, "setVerifySSL:" + e.toString());
+        }
+    }
+
+    // SSL context that trusts the CA of a file path or an "assets/" path, built once per CA file.
+    static CocosSSLContextCache.Entry getSSLContext(final String sslFilename) throws Exception {
+        return CocosSSLContextCache.get(sslFilename, "http", new CocosSSLContextCache.KeyStoreLoader() {
+            @Override
+            public KeyStore load() throws Exception {
+                return createKeyStore(sslFilename);
             }
+        });
+    }
+
+    private static KeyStore createKeyStore(String sslFilename) throws Exception {
+        InputStream caInput = null;
+        if (sslFilename.startsWith("/")) {
+            caInput = new BufferedInputStream(new FileInputStream(sslFilename));
+        }else {
+            String assetString = "assets/";
+            String assetsfilenameString = sslFilename.substring(assetString.length());
+            caInput = new BufferedInputStream(GlobalObject.getActivity().getAssets().open(assetsfilenameString));
+        }
 
-            CertificateFactory cf = CertificateFactory.getInstance("X.509");
-            Certificate ca;
+        CertificateFactory cf = CertificateFactory.getInstance("X.509");
+        Certificate ca;
+        try {
             ca = cf.generateCertificate(caInput);
             System.out.println("ca=" + ((X509Certificate) ca).getSubjectDN());
+        } finally {
             caInput.close();
-
-            // Create a KeyStore containing our trusted CAs
-            String keyStoreType = KeyStore.getDefaultType();
-            KeyStore keyStore = KeyStore.getInstance(keyStoreType);
-            keyStore.load(null, null);
-            keyStore.setCertificateEntry("ca", ca);
-
-            // Create a TrustManager that trusts the CAs in our KeyStore
-            String tmfAlgorithm = TrustManagerFactory.getDefaultAlgorithm();
-            TrustManagerFactory tmf = TrustManagerFactory.getInstance(tmfAlgorithm);
-            tmf.init(keyStore);
-
-            // Create an SSLContext that uses our TrustManager
-            SSLContext context = SSLContext.getInstance("TLS");
-            context.init(null, tmf.getTrustManagers(), null);
-
-            httpsURLConnection.setSSLSocketFactory(context.getSocketFactory());
-        } catch (Exception e) {
-            e.printStackTrace();
-            Log.e(TAG, "setVerifySSL:" + e.toString());
         }
+
+        // Create a KeyStore containing our trusted CAs
+        String keyStoreType = KeyStore.getDefaultType();
+        KeyStore keyStore = KeyStore.getInstance(keyStoreType);
+        keyStore.load(null, null);
+        keyStore.setCertificateEntry("ca", ca);
+        return keyStore;
     }
 
     //Add header
@@ -258,7 +293,43 @@ public class CocosHttpURLConnection
         }
     }
 
-    static byte[] getResponseContent(HttpURLConnection http) {
+    /**
+     * Stream the response body to native in chunks of the read buffer, {@code handle} is the
+     * native buffer they are appended to. Only one chunk is held on the Java heap at a time.
+     * Returns the length of the body, or -1 if it couldn't be read.
+     */
+    static long readResponseContent(HttpURLConnection http, long handle) {
+        InputStream in = openResponseStream(http);
+        if (in == null) {
+            return -1;
+        }
+
+        try {
+            byte[] buffer = sReadBuffer.get();
+            long total = 0;
+            int size = 0;
+            while (size != -1) {
+                // fill the buffer before passing it down, so each JNI call carries a large chunk
+                int len = 0;
+                while (len < buffer.length && (size = in.read(buffer, len, buffer.length - len)) != -1) {
+                    len += size;
+                }
+                if (len > 0) {
+                    nativeOnResponseData(handle, buffer, len);
+                    total += len;
+                }
+            }
+            in.close();
+            return total;
+        } catch (Exception e) {
+            e.printStackTrace();
+            Log.e(TAG, "readResponseContent:" + e.toString());
+        }
+
+        return -1;
+    }
+
+    private static InputStream openResponseStream(HttpURLConnection http) {
         InputStream in;
         try {
             in = http.getInputStream();
@@ -275,27 +346,10 @@ public class CocosHttpURLConnection
             in = http.getErrorStream();
         } catch (Exception e) {
             e.printStackTrace();
-            Log.e(TAG, "1 getResponseContent: " + e.toString());
+            Log.e(TAG, "openResponseStream: " + e.toString());
             return null;
         }
-
-        try {
-            byte[] buffer = new byte[1024];
-            int size   = 0;
-            ByteArrayOutputStream bytestream = new ByteArrayOutputStream();
-            while((size = in.read(buffer, 0 , 1024)) != -1)
-            {
-                bytestream.write(buffer, 0, size);
-            }
-            byte retbuffer[] = bytestream.toByteArray();
-            bytestream.close();
-            return retbuffer;
-        } catch (Exception e) {
-            e.printStackTrace();
-            Log.e(TAG, "2 getResponseContent:" + e.toString());
-        }
-
-        return null;
+        return in;
     }
 
     static int getResponseCode(HttpURLConnection http) {
@@ -34,10 +34,38 @@ public class CocosKeyCodeHandler {
 
     public native void handleKeyUp(final int keyCode);
 
+    private final class KeyRecord extends CocosEventPool.Record {
+        int keyCode;
+        boolean down;
+
+        @Override
+        void handle() {
+            if (down) {
+                handleKeyDown(keyCode);
+            } else {
+                handleKeyUp(keyCode);
+            }
+        }
+    }
+
+    private final CocosEventPool<KeyRecord> mKeyPool = new CocosEventPool<>(new CocosEventPool.Factory<KeyRecord>() {
+        @Override
+        public KeyRecord create() {
+            return new KeyRecord();
+        }
+    });
+
     public CocosKeyCodeHandler(CocosActivity act) {
         mAct = act;
     }
 
+    private void postKeyEvent(int keyCode, boolean down) {
+        KeyRecord record = mKeyPool.obtain();
+        record.keyCode = keyCode;
+        record.down = down;
+        CocosHelper.runOnGameThreadAtForeground(record, CocosHelper.TASK_LANE_INPUT);
+    }
+
     public boolean onKeyDown(final int keyCode, final KeyEvent event) {
         switch (keyCode) {
             case KeyEvent.KEYCODE_BACK:
@@ -50,12 +78,7 @@ public class CocosKeyCodeHandler {
             case KeyEvent.KEYCODE_ENTER:
             case KeyEvent.KEYCODE_MEDIA_PLAY_PAUSE:
             case KeyEvent.KEYCODE_DPAD_CENTER:
-                CocosHelper.runOnGameThreadAtForeground(new Runnable() {
-                    @Override
-                    public void run() {
-                        handleKeyDown(keyCode);
-                    }
-                });
+                postKeyEvent(keyCode, true);
                 return true;
             default:
                 return false;
@@ -73,12 +96,7 @@ public class CocosKeyCodeHandler {
             case KeyEvent.KEYCODE_ENTER:
             case KeyEvent.KEYCODE_MEDIA_PLAY_PAUSE:
             case KeyEvent.KEYCODE_DPAD_CENTER:
-                CocosHelper.runOnGameThreadAtForeground(new Runnable() {
-                    @Override
-                    public void run() {
-                        handleKeyUp(keyCode);
-                    }
-                });
+                postKeyEvent(keyCode, false);
                 return true;
             default:
                 return false;
@@ -27,19 +27,99 @@ package com.cocos.lib;
 import android.content.Context;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteDoneException;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
 import android.util.Log;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
 public class CocosLocalStorage {
 
     private static final String TAG = "CocosLocalStorage";
 
     private static String DATABASE_NAME = "jsb.sqlite";
     private static String TABLE_NAME = "data";
-    private static final int DATABASE_VERSION = 1;
+    // 2 adds the file column, the name of the file holding a large value instead of the row.
+    // 3 adds the flags column, FLAG_* of the stored value.
+    private static final int DATABASE_VERSION = 3;
+    private static final String VALUE_DIR_SUFFIX = ".values";
+    // The value was set as bytes, it is a BLOB.
+    private static final int FLAG_BINARY = 1;
+    // The stored bytes are deflated.
+    private static final int FLAG_DEFLATE = 1 << 1;
 
     private static DBOpenHelper mDatabaseOpenHelper = null;
     private static SQLiteDatabase mDatabase = null;
+    // Compiled once in init, only used by flush.
+    private static SQLiteStatement mReplaceStatement = null;
+    private static SQLiteStatement mDeleteStatement = null;
+    private static SQLiteStatement mClearStatement = null;
+    private static SQLiteStatement mFileStatement = null;
+    private static File sValueDir = null;
+
+    // Every key in the order of the table, writes land here first and reach the database
+    // later in a background flush.
+    private static final LinkedHashSet<String> sItemKeys = new LinkedHashSet<>();
+    // Keys of sItemKeys by index for getKey. New keys are appended, removing or moving a key
+    // other than the last one drops it, and the next getKey rebuilds it.
+    private static final ArrayList<String> sKeys = new ArrayList<>();
+    private static boolean sKeysValid = false;
+    // Values read or written lately, least recently used first, bounded by sCacheLimit bytes.
+    // A value is a String, or a byte[] set by setItemBytes.
+    private static final LinkedHashMap<String, Object> sValues = new LinkedHashMap<>(16, 0.75f, true);
+    private static long sCacheLimit = 4 * 1024 * 1024;
+    private static long sCacheBytes = 0;
+    private static long sCacheHits = 0;
+    private static long sCacheMisses = 0;
+    private static long sCacheEvictions = 0;
+    // Values of at least this many chars or bytes are stored in files referenced from the table,
+    // so the pages of the database stay small. Below it SQLite reads blobs faster than files.
+    private static final int LARGE_VALUE_THRESHOLD = 100 * 1024;
+    // Byte values of at least this many bytes are deflated, 0 disables it.
+    private static int sCompressThreshold = 1024;
+    // Writes not flushed yet, in the order they were made, a null value removes the key.
+    private static LinkedHashMap<String, Object> sPending = new LinkedHashMap<>();
+    private static boolean sPendingClear = false;
+    // Batch being written by flush, reads of evicted values look here before the database.
+    private static LinkedHashMap<String, Object> sFlushing = null;
+    private static boolean sFlushScheduled = false;
+    // Bumped by every write, a value read from the database outside sLock is only kept if it didn't change.
+    private static long sWriteVersion = 0;
+    private static final Object sLock = new Object();
+    // Held while a batch is written, so batches reach the database in the order they were made.
+    private static final Object sFlushLock = new Object();
+    private static ExecutorService sFlushExecutor = null;
+
+    private static final Runnable sFlushRunnable = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
 
     public static boolean init(String dbName, String tableName) {
         if (GlobalObject.getActivity() != null) {
@@ -47,102 +127,533 @@ public class CocosLocalStorage {
             TABLE_NAME = tableName;
             mDatabaseOpenHelper = new DBOpenHelper(GlobalObject.getActivity());
             mDatabase = mDatabaseOpenHelper.getWritableDatabase();
+            mReplaceStatement = mDatabase.compileStatement("replace into " + TABLE_NAME + "(key,value,file,flags)values(?,?,?,?)");
+            mDeleteStatement = mDatabase.compileStatement("delete from " + TABLE_NAME + " where key=?");
+            mClearStatement = mDatabase.compileStatement("delete from " + TABLE_NAME);
+            mFileStatement = mDatabase.compileStatement("select file from " + TABLE_NAME + " where key=?");
+            sValueDir = new File(GlobalObject.getActivity().getFilesDir(), DATABASE_NAME + VALUE_DIR_SUFFIX);
+            loadItems();
             return true;
         }
         return false;
     }
     
     public static void destroy() {
-        if (mDatabase != null) {
-            mDatabase.close();
+        synchronized (sFlushLock) {
+            flush();
+            if (mDatabase != null) {
+                mReplaceStatement.close();
+                mDeleteStatement.close();
+                mClearStatement.close();
+                mFileStatement.close();
+                mDatabase.close();
+                mDatabase = null;
+            }
         }
     }
 
-    public static void setItem(String key, String value) {
-        try {
-            String sql = "replace into "+TABLE_NAME+"(key,value)values(?,?)";
-            mDatabase.execSQL(sql, new Object[] { key, value });
-        } catch (Exception e) {
-            e.printStackTrace();
+    /**
+     * Bound the memory taken by cached values, about 2 bytes per char. Values that don't fit
+     * are read from the database again when needed.
+     */
+    public static void setCacheLimit(int bytes) {
+        synchronized (sLock) {
+            sCacheLimit = Math.max(0, bytes);
+            trimCache();
         }
     }
 
-    public static String getItem(String key) {
-        String ret = null;
+    // Deflate byte values of at least this many bytes when they are written, 0 disables it.
+    public static void setCompressThreshold(int bytes) {
+        synchronized (sLock) {
+            sCompressThreshold = Math.max(0, bytes);
+        }
+    }
+
+    // hits, misses, evictions, cached bytes, cached values
+    public static long[] getCacheStats() {
+        synchronized (sLock) {
+            return new long[] { sCacheHits, sCacheMisses, sCacheEvictions, sCacheBytes, sValues.size() };
+        }
+    }
+
+    // Load every key and the values that fit in the cache, drop value files of no row.
+    private static void loadItems() {
+        HashSet<String> files = new HashSet<>();
+        synchronized (sLock) {
+            sItemKeys.clear();
+            sKeysValid = false;
+            sValues.clear();
+            sCacheBytes = 0;
+            try {
+                Cursor c = mDatabase.rawQuery("select key,value,file,flags from " + TABLE_NAME + " order by rowid asc", null);
+                int keyIndex = c.getColumnIndex("key");
+                int valueIndex = c.getColumnIndex("value");
+                int fileIndex = c.getColumnIndex("file");
+                int flagsIndex = c.getColumnIndex("flags");
+                while (c.moveToNext()) {
+                    String key = c.getString(keyIndex);
+                    sItemKeys.add(key);
+                    int flags = c.getInt(flagsIndex);
+                    if (!c.isNull(fileIndex)) {
+                        files.add(c.getString(fileIndex));
+                    } else if (sCacheBytes < sCacheLimit && (flags & FLAG_DEFLATE) == 0) {
+                        Object value = (flags & FLAG_BINARY) != 0 ? c.getBlob(valueIndex) : c.getString(valueIndex);
+                        if (sCacheBytes + sizeOf(value) <= sCacheLimit) {
+                            cacheValue(key, value);
+                        }
+                    }
+                }
+                c.close();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+
+        File[] valueFiles = sValueDir.listFiles();
+        if (valueFiles != null) {
+            for (File file : valueFiles) {
+                if (!files.contains(file.getName())) {
+                    file.delete();
+                }
+            }
+        }
+    }
+
+    private static long sizeOf(Object value) {
+        return value instanceof byte[] ? ((byte[]) value).length : 2L * ((String) value).length();
+    }
+
+    // Called with sLock held.
+    private static void cacheValue(String key, Object value) {
+        uncacheValue(key);
+        long size = sizeOf(value);
+        if (size > sCacheLimit / 2) return;
+        sValues.put(key, value);
+        sCacheBytes += size;
+        trimCache();
+    }
+
+    // Called with sLock held.
+    private static void uncacheValue(String key) {
+        Object old = sValues.remove(key);
+        if (old != null) {
+            sCacheBytes -= sizeOf(old);
+        }
+    }
+
+    // Called with sLock held.
+    private static void trimCache() {
+        Iterator<Map.Entry<String, Object>> it = sValues.entrySet().iterator();
+        while (sCacheBytes > sCacheLimit && it.hasNext()) {
+            sCacheBytes -= sizeOf(it.next().getValue());
+            it.remove();
+            sCacheEvictions++;
+        }
+    }
+
+    // Called with sLock held, a value written but not committed yet.
+    private static Object unflushedValue(String key) {
+        Object value = sPending.get(key);
+        if (value == null && sFlushing != null) {
+            value = sFlushing.get(key);
+        }
+        return value;
+    }
+
+    // Called without sLock, reads the committed value of key from the table or its value file.
+    private static Object queryValue(String key) {
+        Object value = null;
         try {
-            String sql = "select value from "+TABLE_NAME+" where key=?";
-            Cursor c = mDatabase.rawQuery(sql, new String[]{key});
-            while (c.moveToNext()) {
-                // only return the first value
-                if (ret != null)
-                {
-                    Log.e(TAG, "The key contains more than one value.");
-                    break;
+            Cursor c = mDatabase.rawQuery("select value,file,flags from " + TABLE_NAME + " where key=?", new String[]{key});
+            if (c.moveToNext()) {
+                int valueIndex = c.getColumnIndex("value");
+                int fileIndex = c.getColumnIndex("file");
+                int flags = c.getInt(c.getColumnIndex("flags"));
+                byte[] bytes = null;
+                if (!c.isNull(fileIndex)) {
+                    bytes = readValueFile(c.getString(fileIndex));
+                } else if ((flags & FLAG_BINARY) != 0) {
+                    bytes = c.getBlob(valueIndex);
+                } else {
+                    value = c.getString(valueIndex);
+                }
+                if (bytes != null) {
+                    if ((flags & FLAG_DEFLATE) != 0) {
+                        bytes = inflate(bytes);
+                    }
+                    value = (flags & FLAG_BINARY) != 0 ? bytes : new String(bytes, StandardCharsets.UTF_8);
                 }
-                ret = c.getString(c.getColumnIndex("value"));
             }
             c.close();
         } catch (Exception e) {
             e.printStackTrace();
         }
-        return ret;
+        return value;
     }
 
-    public static void removeItem(String key) {
+    private static byte[] deflate(byte[] bytes) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        deflater.setInput(bytes);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2);
+        byte[] buffer = new byte[16 * 1024];
+        while (!deflater.finished()) {
+            out.write(buffer, 0, deflater.deflate(buffer));
+        }
+        deflater.end();
+        return out.toByteArray();
+    }
+
+    private static byte[] inflate(byte[] bytes) throws DataFormatException {
+        Inflater inflater = new Inflater();
+        inflater.setInput(bytes);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length * 2);
+        byte[] buffer = new byte[16 * 1024];
         try {
-            String sql = "delete from "+TABLE_NAME+" where key=?";
-            mDatabase.execSQL(sql, new Object[] {key});
-        } catch (Exception e) {
-            e.printStackTrace();
+            while (!inflater.finished()) {
+                int len = inflater.inflate(buffer);
+                if (len == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new DataFormatException("Truncated deflate data");
+                }
+                out.write(buffer, 0, len);
+            }
+        } finally {
+            inflater.end();
         }
+        return out.toByteArray();
     }
 
-    public static void clear() {
+    private static byte[] readValueFile(String name) throws IOException {
+        File file = new File(sValueDir, name);
+        FileInputStream fis = new FileInputStream(file);
         try {
-            String sql = "delete from "+TABLE_NAME;
-            mDatabase.execSQL(sql);
-        } catch (Exception e) {
-            e.printStackTrace();
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream((int) file.length());
+            byte[] buffer = new byte[64 * 1024];
+            int len;
+            while ((len = fis.read(buffer)) != -1) {
+                bytes.write(buffer, 0, len);
+            }
+            return bytes.toByteArray();
+        } finally {
+            fis.close();
         }
     }
 
-    public static String getKey(int nIndex) {
-        String ret = null;
+    // Written and synced before the row that references it is committed.
+    private static String writeValueFile(byte[] value) throws IOException {
+        if (!sValueDir.isDirectory() && !sValueDir.mkdirs()) {
+            throw new IOException("Can't create " + sValueDir.getPath());
+        }
+        String name = UUID.randomUUID().toString();
+        FileOutputStream fos = new FileOutputStream(new File(sValueDir, name));
         try {
-            int nCount = 0;
-            String sql = "select key from "+TABLE_NAME + " order by rowid asc";
-            Cursor c = mDatabase.rawQuery(sql, null);
-            if(nIndex < 0 || nIndex >= c.getCount()) {
-                return null;
+            fos.write(value);
+            fos.getFD().sync();
+        } finally {
+            fos.close();
+        }
+        return name;
+    }
+
+    // Called by flush, name of the value file of the committed row of key.
+    private static String queryValueFile(String key) {
+        mFileStatement.bindString(1, key);
+        try {
+            return mFileStatement.simpleQueryForString();
+        } catch (SQLiteDoneException e) {
+            return null;
+        }
+    }
+
+    // Called with sLock held.
+    private static void scheduleFlush() {
+        if (sFlushScheduled) return;
+        sFlushScheduled = true;
+        getFlushExecutor().execute(sFlushRunnable);
+    }
+
+    // Called with sLock held.
+    private static ExecutorService getFlushExecutor() {
+        if (sFlushExecutor == null) {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "CocosLocalStorage");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            executor.allowCoreThreadTimeOut(true);
+            sFlushExecutor = executor;
+        }
+        return sFlushExecutor;
+    }
+
+    /**
+     * Start writing pending changes on the writer thread and wait at most {@code timeoutMs}
+     * for them, called when the activity pauses. A slow flush goes on in the background
+     * instead of blocking the UI thread.
+     */
+    public static void flush(long timeoutMs) {
+        Future<?> future;
+        synchronized (sLock) {
+            if (mDatabase == null || (sPending.isEmpty() && !sPendingClear)) return;
+            future = getFlushExecutor().submit(sFlushRunnable);
+        }
+        try {
+            future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            Log.w(TAG, "flush still running after " + timeoutMs + "ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            Log.e(TAG, "flush failed: " + e.getCause());
+        }
+    }
+
+    /**
+     * Write pending changes to the database in one transaction and wait for it, called when
+     * the activity stops. Changes are written in the order they were made.
+     */
+    public static void flush() {
+        synchronized (sFlushLock) {
+            LinkedHashMap<String, Object> pending;
+            boolean clear;
+            int compressThreshold;
+            synchronized (sLock) {
+                sFlushScheduled = false;
+                if (mDatabase == null || (sPending.isEmpty() && !sPendingClear)) return;
+                pending = sPending;
+                clear = sPendingClear;
+                compressThreshold = sCompressThreshold;
+                sFlushing = pending;
+                sPending = new LinkedHashMap<>();
+                sPendingClear = false;
             }
 
-            while (c.moveToNext()) {
-                if(nCount == nIndex) {
-                    ret = c.getString(c.getColumnIndex("key"));
-                    break;
+            // files are deleted once the rows that referenced them are gone for good
+            ArrayList<String> obsoleteFiles = new ArrayList<>();
+            HashSet<String> newFiles = new HashSet<>();
+            boolean success = false;
+            mDatabase.beginTransaction();
+            try {
+                if (clear) {
+                    mClearStatement.execute();
+                }
+                for (Map.Entry<String, Object> entry : pending.entrySet()) {
+                    String key = entry.getKey();
+                    Object value = entry.getValue();
+                    String oldFile = clear ? null : queryValueFile(key);
+                    if (oldFile != null) {
+                        obsoleteFiles.add(oldFile);
+                    }
+                    if (value == null) {
+                        mDeleteStatement.bindString(1, key);
+                        mDeleteStatement.execute();
+                        continue;
+                    }
+
+                    byte[] bytes = null;
+                    int flags = 0;
+                    if (value instanceof byte[]) {
+                        bytes = (byte[]) value;
+                        flags = FLAG_BINARY;
+                        if (compressThreshold > 0 && bytes.length >= compressThreshold) {
+                            byte[] deflated = deflate(bytes);
+                            if (deflated.length < bytes.length) {
+                                bytes = deflated;
+                                flags |= FLAG_DEFLATE;
+                            }
+                        }
+                    }
+                    int length = bytes != null ? bytes.length : ((String) value).length();
+                    mReplaceStatement.bindString(1, key);
+                    if (length >= LARGE_VALUE_THRESHOLD) {
+                        String file = writeValueFile(bytes != null ? bytes : ((String) value).getBytes(StandardCharsets.UTF_8));
+                        newFiles.add(file);
+                        mReplaceStatement.bindNull(2);
+                        mReplaceStatement.bindString(3, file);
+                    } else {
+                        if (bytes != null) {
+                            mReplaceStatement.bindBlob(2, bytes);
+                        } else {
+                            mReplaceStatement.bindString(2, (String) value);
+                        }
+                        mReplaceStatement.bindNull(3);
+                    }
+                    mReplaceStatement.bindLong(4, flags);
+                    mReplaceStatement.execute();
+                }
+                mDatabase.setTransactionSuccessful();
+                success = true;
+            } catch (Exception e) {
+                e.printStackTrace();
+            } finally {
+                mDatabase.endTransaction();
+            }
+
+            if (success) {
+                for (String name : obsoleteFiles) {
+                    new File(sValueDir, name).delete();
+                }
+                File[] files = clear ? sValueDir.listFiles() : null;
+                if (files != null) {
+                    for (File file : files) {
+                        if (!newFiles.contains(file.getName())) {
+                            file.delete();
+                        }
+                    }
+                }
+            } else {
+                for (String name : newFiles) {
+                    new File(sValueDir, name).delete();
+                }
+            }
+
+            synchronized (sLock) {
+                sFlushing = null;
+                if (!success && !sPendingClear) {
+                    // keep the batch in front of newer writes, it is retried by the next flush
+                    for (Map.Entry<String, Object> entry : sPending.entrySet()) {
+                        pending.remove(entry.getKey());
+                        pending.put(entry.getKey(), entry.getValue());
+                    }
+                    sPending = pending;
+                    sPendingClear = clear;
                 }
-                nCount++;
             }
-            c.close();
-        } catch (Exception e) {
-            e.printStackTrace();
         }
-        return ret;
     }
 
-    public  static int getLength() {
-        int res = 0;
-        try {
-            String sql = "select count(*) as nums from "+TABLE_NAME;
-            Cursor c = mDatabase.rawQuery(sql, null);
-            if (c.moveToNext()){
-                res = c.getInt(c.getColumnIndex("nums"));
+    public static void setItem(String key, String value) {
+        putValue(key, value);
+    }
+
+    /**
+     * Store binary data as a BLOB, deflated if it is large, without encoding it to text.
+     * The array is kept, it must not be modified afterwards.
+     */
+    public static void setItemBytes(String key, byte[] value) {
+        putValue(key, value);
+    }
+
+    private static void putValue(String key, Object value) {
+        synchronized (sLock) {
+            // replace gives the row a new rowid, so the key moves to the end
+            if (sItemKeys.remove(key)) {
+                if (sKeysValid && !key.equals(sKeys.get(sKeys.size() - 1))) {
+                    sKeysValid = false;
+                }
+            } else if (sKeysValid) {
+                sKeys.add(key);
             }
-            c.close();
-        } catch (Exception e) {
-            e.printStackTrace();
+            sItemKeys.add(key);
+            sWriteVersion++;
+            cacheValue(key, value);
+            sPending.remove(key);
+            sPending.put(key, value);
+            scheduleFlush();
+        }
+    }
+
+    // null for an item set by setItemBytes
+    public static String getItem(String key) {
+        Object value = getValue(key);
+        return value instanceof String ? (String) value : null;
+    }
+
+    // The UTF-8 bytes of an item set by setItem. The array must not be modified.
+    public static byte[] getItemBytes(String key) {
+        Object value = getValue(key);
+        return value instanceof String ? ((String) value).getBytes(StandardCharsets.UTF_8) : (byte[]) value;
+    }
+
+    private static Object getValue(String key) {
+        boolean missed = false;
+        while (true) {
+            long writeVersion;
+            synchronized (sLock) {
+                if (!sItemKeys.contains(key)) return null;
+                Object value = sValues.get(key);
+                if (value != null) {
+                    if (!missed) sCacheHits++;
+                    return value;
+                }
+                if (!missed) sCacheMisses++;
+                missed = true;
+                value = unflushedValue(key);
+                if (value != null) {
+                    cacheValue(key, value);
+                    return value;
+                }
+                writeVersion = sWriteVersion;
+            }
+
+            // the query, file read and inflate run outside sLock, so they don't hold up writes and the flusher
+            Object value = queryValue(key);
+            synchronized (sLock) {
+                // a write meanwhile may have replaced the row or deleted its value file, read again then
+                if (writeVersion == sWriteVersion) {
+                    if (value != null) {
+                        cacheValue(key, value);
+                    }
+                    return value;
+                }
+            }
+        }
+    }
+
+    public static void removeItem(String key) {
+        synchronized (sLock) {
+            if (sItemKeys.remove(key) && sKeysValid) {
+                if (key.equals(sKeys.get(sKeys.size() - 1))) {
+                    sKeys.remove(sKeys.size() - 1);
+                } else {
+                    sKeysValid = false;
+                }
+            }
+            sWriteVersion++;
+            uncacheValue(key);
+            sPending.remove(key);
+            sPending.put(key, null);
+            scheduleFlush();
+        }
+    }
+
+    public static void clear() {
+        synchronized (sLock) {
+            sItemKeys.clear();
+            sKeys.clear();
+            sKeysValid = true;
+            sValues.clear();
+            sCacheBytes = 0;
+            sWriteVersion++;
+            sPending.clear();
+            sPendingClear = true;
+            scheduleFlush();
+        }
+    }
+
+    public static String getKey(int nIndex) {
+        synchronized (sLock) {
+            if (nIndex < 0 || nIndex >= sItemKeys.size()) {
+                return null;
+            }
+            if (!sKeysValid) {
+                sKeys.clear();
+                sKeys.addAll(sItemKeys);
+                sKeysValid = true;
+            }
+            return sKeys.get(nIndex);
+        }
+    }
+
+    public  static int getLength() {
+        synchronized (sLock) {
+            return sItemKeys.size();
         }
-        return res;
     }
 
     /**
@@ -154,17 +665,28 @@ public class CocosLocalStorage {
             super(context, DATABASE_NAME, null, DATABASE_VERSION);
         }
 
+        @Override
+        public void onConfigure(SQLiteDatabase db) {
+            // WAL commits append to the log without rewriting pages, and with synchronous=NORMAL
+            // they sync only at checkpoints. A crash may lose the last commits, never corrupts.
+            db.enableWriteAheadLogging();
+            db.execSQL("PRAGMA synchronous=NORMAL");
+        }
+
         @Override
         public void onCreate(SQLiteDatabase db) {
-            db.execSQL("CREATE TABLE IF NOT EXISTS "+TABLE_NAME+"(key TEXT PRIMARY KEY,value TEXT);");
+            db.execSQL("CREATE TABLE IF NOT EXISTS "+TABLE_NAME+"(key TEXT PRIMARY KEY,value TEXT,file TEXT,flags INTEGER NOT NULL DEFAULT 0);");
         }
 
         @Override
         public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-            Log.w(TAG, "Upgrading database from version " + oldVersion + " to "
-                    + newVersion + ", which will destroy all old data");
-            //db.execSQL("DROP TABLE IF EXISTS " + VIRTUAL_TABLE);
-            //onCreate(db);
+            Log.w(TAG, "Upgrading database from version " + oldVersion + " to " + newVersion);
+            if (oldVersion < 2) {
+                db.execSQL("ALTER TABLE " + TABLE_NAME + " ADD COLUMN file TEXT;");
+            }
+            if (oldVersion < 3) {
+                db.execSQL("ALTER TABLE " + TABLE_NAME + " ADD COLUMN flags INTEGER NOT NULL DEFAULT 0;");
+            }
         }
     }
 }
@@ -0,0 +1,301 @@
+/****************************************************************************
+ Copyright (c) 2022 Xiamen Yaji Software Co., Ltd.
+
+ http://www.cocos.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated engine source code (the "Software"), a limited,
+ worldwide, royalty-free, non-assignable, revocable and non-exclusive license
+ to use Cocos Creator solely to develop games on your target platforms. You shall
+ not use Cocos Creator software for developing other software or tools that's
+ used for developing games. You are not granted to publish, distribute,
+ sublicense, and/or sell copies of Cocos Creator.
+
+ The software or tools in this License Agreement are licensed, not sold.
+ Xiamen Yaji Software Co., Ltd. reserves all rights not expressly granted to you.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ****************************************************************************/
+
+package com.cocos.lib;
+
+import android.util.Log;
+
+import org.cocos2dx.okhttp3.Call;
+import org.cocos2dx.okhttp3.ConnectionPool;
+import org.cocos2dx.okhttp3.Headers;
+import org.cocos2dx.okhttp3.MediaType;
+import org.cocos2dx.okhttp3.OkHttpClient;
+import org.cocos2dx.okhttp3.Protocol;
+import org.cocos2dx.okhttp3.Request;
+import org.cocos2dx.okhttp3.RequestBody;
+import org.cocos2dx.okhttp3.Response;
+import org.cocos2dx.okhttp3.internal.http.HttpMethod;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.ProtocolException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HttpURLConnection backed by an OkHttpClient shared by all XMLHttpRequests, so requests
+ * to the same host reuse pooled connections and HTTP/2 instead of handshaking each time.
+ * It stands in for the connection of {@link CocosHttpURLConnection}, whose static methods
+ * drive it the same way as the platform one.
+ *
+ * The request is sent when the response is first asked for. The body written to
+ * {@link #getOutputStream} is buffered until then.
+ */
+class CocosOkHttpURLConnection extends HttpURLConnection {
+    private static final String TAG = "CocosOkHttpURLConnection";
+
+    private static final int MAX_IDLE_CONNECTIONS = 5;
+    private static final long KEEP_ALIVE_DURATION_SECONDS = 5 * 60;
+
+    private static OkHttpClient sharedClient = null;
+    // Clients trusting the CA file of setVerifySSL, they share the pool of sharedClient.
+    // A client is replaced when the cached SSL context of its CA file is.
+    private static final HashMap<String, OkHttpClient> caClients = new HashMap<>();
+
+    private String _caFile = null;
+    private ByteArrayOutputStream _requestBody = null;
+    private Call _call = null;
+    private Response _response = null;
+    private IOException _failure = null;
+
+    CocosOkHttpURLConnection(URL url) {
+        super(url);
+    }
+
+    private static synchronized OkHttpClient getSharedClient() {
+        if (sharedClient == null) {
+            sharedClient = new OkHttpClient.Builder()
+                    .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_DURATION_SECONDS, TimeUnit.SECONDS))
+                    // HTTP/2 is negotiated over TLS by ALPN, plain http stays on HTTP/1.1.
+                    .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                    .followRedirects(true)
+                    .followSslRedirects(false)
+                    .build();
+        }
+        return sharedClient;
+    }
+
+    private static OkHttpClient getCaClient(String caFile) throws Exception {
+        CocosSSLContextCache.Entry sslContext = CocosHttpURLConnection.getSSLContext(caFile);
+        synchronized (caClients) {
+            OkHttpClient client = caClients.get(caFile);
+            if (client == null || client.sslSocketFactory() != sslContext.socketFactory) {
+                client = getSharedClient().newBuilder()
+                        .sslSocketFactory(sslContext.socketFactory, sslContext.trustManager)
+                        .build();
+                caClients.put(caFile, client);
+            }
+            return client;
+        }
+    }
+
+    void setCaFile(String caFile) {
+        _caFile = caFile;
+    }
+
+    @Override
+    public void setRequestMethod(String method) throws ProtocolException {
+        // the platform connection doesn't know PATCH, OkHttp sends it
+        if ("PATCH".equals(method)) {
+            if (connected) {
+                throw new ProtocolException("Can't reset method: already connected");
+            }
+            this.method = method;
+            return;
+        }
+        super.setRequestMethod(method);
+    }
+
+    @Override
+    public void connect() throws IOException {
+        // connecting is left to OkHttp when the request is sent, it may reuse a pooled connection
+    }
+
+    @Override
+    public void disconnect() {
+        // a fully read body already gave the connection back to the pool, this only drops an unread one
+        if (_response != null) {
+            _response.close();
+        } else if (_call != null) {
+            _call.cancel();
+        }
+    }
+
+    @Override
+    public boolean usingProxy() {
+        return false;
+    }
+
+    @Override
+    public OutputStream getOutputStream() throws IOException {
+        if (!getDoOutput()) {
+            throw new ProtocolException("Request method " + method + " doesn't allow output, call setDoOutput(true) first");
+        }
+        if (_requestBody == null) {
+            _requestBody = new ByteArrayOutputStream();
+        }
+        return _requestBody;
+    }
+
+    @Override
+    public int getResponseCode() throws IOException {
+        execute();
+        return responseCode;
+    }
+
+    @Override
+    public String getResponseMessage() throws IOException {
+        execute();
+        return responseMessage;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        execute();
+        if (responseCode >= HTTP_BAD_REQUEST) {
+            // same as the platform connection, the body of an error is read from getErrorStream
+            throw new FileNotFoundException(url.toString());
+        }
+        return _response.body().byteStream();
+    }
+
+    @Override
+    public InputStream getErrorStream() {
+        if (_response == null || responseCode < HTTP_BAD_REQUEST) {
+            return null;
+        }
+        return _response.body().byteStream();
+    }
+
+    @Override
+    public Map<String, List<String>> getHeaderFields() {
+        if (!tryExecute()) {
+            return Collections.emptyMap();
+        }
+        Map<String, List<String>> fields = new LinkedHashMap<>();
+        // the platform connection lists the status line under the null key
+        fields.put(null, Collections.singletonList(getStatusLine()));
+        fields.putAll(_response.headers().toMultimap());
+        return Collections.unmodifiableMap(fields);
+    }
+
+    @Override
+    public String getHeaderField(String name) {
+        if (!tryExecute()) return null;
+        return name == null ? getStatusLine() : _response.header(name);
+    }
+
+    @Override
+    public String getHeaderField(int n) {
+        if (!tryExecute()) return null;
+        if (n == 0) return getStatusLine();
+        Headers headers = _response.headers();
+        return n <= headers.size() ? headers.value(n - 1) : null;
+    }
+
+    @Override
+    public String getHeaderFieldKey(int n) {
+        if (!tryExecute() || n == 0) return null;
+        Headers headers = _response.headers();
+        return n <= headers.size() ? headers.name(n - 1) : null;
+    }
+
+    private String getStatusLine() {
+        Protocol protocol = _response.protocol();
+        String version;
+        if (protocol == Protocol.HTTP_2 || protocol == Protocol.H2_PRIOR_KNOWLEDGE) {
+            version = "HTTP/2";
+        } else {
+            // http/1.0, http/1.1 and the rest as named by OkHttp
+            version = protocol.toString().toUpperCase(Locale.US);
+        }
+        return version + " " + responseCode + " " + responseMessage;
+    }
+
+    private boolean tryExecute() {
+        try {
+            execute();
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private synchronized void execute() throws IOException {
+        if (_response != null) return;
+        if (_failure != null) throw _failure;
+
+        Request.Builder builder = new Request.Builder().url(url);
+        for (Map.Entry<String, List<String>> entry : getRequestProperties().entrySet()) {
+            for (String value : entry.getValue()) {
+                builder.addHeader(entry.getKey(), value);
+            }
+        }
+        if (_requestBody != null && method.equals("GET")) {
+            // same as the platform connection, output turns a GET into a POST
+            method = "POST";
+        }
+        RequestBody body = null;
+        if ((_requestBody != null && HttpMethod.permitsRequestBody(method)) || HttpMethod.requiresRequestBody(method)) {
+            // OkHttp rejects a null body for POST, PUT, PATCH and the like, send an empty one
+            String contentType = getRequestProperty("Content-Type");
+            byte[] bytes = _requestBody == null ? new byte[0] : _requestBody.toByteArray();
+            body = RequestBody.create(contentType == null ? null : MediaType.parse(contentType), bytes);
+        }
+        builder.method(method, body);
+        connected = true;
+
+        try {
+            _call = getClient().newCall(builder.build());
+            _response = _call.execute();
+        } catch (IOException e) {
+            _failure = e;
+            throw e;
+        } catch (Exception e) {
+            Log.e(TAG, "execute: " + e.toString());
+            _failure = new IOException(e);
+            throw _failure;
+        }
+        responseCode = _response.code();
+        responseMessage = _response.message();
+    }
+
+    private OkHttpClient getClient() throws Exception {
+        OkHttpClient client = _caFile != null && url.getProtocol().equals("https") ? getCaClient(_caFile) : getSharedClient();
+        int connectTimeout = getConnectTimeout();
+        int readTimeout = getReadTimeout();
+        if (connectTimeout == client.connectTimeoutMillis() && readTimeout == client.readTimeoutMillis() &&
+                readTimeout == client.writeTimeoutMillis()) {
+            return client;
+        }
+        // a derived client shares the pool, dispatcher and SSL socket factory
+        return client.newBuilder()
+                .connectTimeout(connectTimeout, TimeUnit.MILLISECONDS)
+                .readTimeout(readTimeout, TimeUnit.MILLISECONDS)
+                .writeTimeout(readTimeout, TimeUnit.MILLISECONDS)
+                .build();
+    }
+}
@@ -29,7 +29,14 @@ import android.view.OrientationEventListener;
 
 public class CocosOrientationHelper extends OrientationEventListener {
 
-    private int mCurrentOrientation;
+    private volatile int mCurrentOrientation;
+    // Reports the latest rotation when it runs, so one instance serves every change.
+    private final Runnable mNotifyRunnable = new Runnable() {
+        @Override
+        public void run() {
+            nativeOnOrientationChanged(mCurrentOrientation);
+        }
+    };
 
     public CocosOrientationHelper(Context context) {
         super(context);
@@ -49,12 +56,7 @@ public class CocosOrientationHelper extends OrientationEventListener {
         int curOrientation = CocosHelper.getDeviceRotation();
         if (curOrientation != mCurrentOrientation) {
             mCurrentOrientation = CocosHelper.getDeviceRotation();
-            CocosHelper.runOnGameThreadAtForeground(new Runnable() {
-                @Override
-                public void run() {
-                    nativeOnOrientationChanged(mCurrentOrientation);
-                }
-            });
+            CocosHelper.runOnGameThreadAtForeground(mNotifyRunnable);
         }
     }
 
@@ -0,0 +1,139 @@
+/****************************************************************************
+ Copyright (c) 2022 Xiamen Yaji Software Co., Ltd.
+
+ http://www.cocos.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated engine source code (the "Software"), a limited,
+ worldwide, royalty-free, non-assignable, revocable and non-exclusive license
+ to use Cocos Creator solely to develop games on your target platforms. You shall
+ not use Cocos Creator software for developing other software or tools that's
+ used for developing games. You are not granted to publish, distribute,
+ sublicense, and/or sell copies of Cocos Creator.
+
+ The software or tools in this License Agreement are licensed, not sold.
+ Xiamen Yaji Software Co., Ltd. reserves all rights not expressly granted to you.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ****************************************************************************/
+
+package com.cocos.lib;
+
+import java.io.File;
+import java.security.KeyStore;
+import java.util.HashMap;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.X509TrustManager;
+
+/**
+ * SSL contexts trusting a CA file, shared by XMLHttpRequest and WebSocket. The CA file is
+ * parsed and its context initialized once; later connections reuse the same socket
+ * factory, so they can also resume TLS sessions instead of doing a full handshake.
+ *
+ * Entries are keyed by the CA path and the kind of loader, callers parsing the same file
+ * differently don't share the trust set of whichever came first. An entry is rebuilt when
+ * the file's modification time or length changes. Files in assets can't change while the
+ * app runs.
+ */
+public final class CocosSSLContextCache {
+
+    // Parses the CA file on a cache miss.
+    public interface KeyStoreLoader {
+        KeyStore load() throws Exception;
+    }
+
+    public static final class Entry {
+        public final KeyStore keyStore;
+        public final X509TrustManager trustManager;
+        public final SSLContext sslContext;
+        public final SSLSocketFactory socketFactory;
+        private final long mLastModified;
+        private final long mLength;
+
+        private Entry(KeyStore keyStore, X509TrustManager trustManager, SSLContext sslContext,
+                      long lastModified, long length) {
+            this.keyStore = keyStore;
+            this.trustManager = trustManager;
+            this.sslContext = sslContext;
+            this.socketFactory = sslContext.getSocketFactory();
+            mLastModified = lastModified;
+            mLength = length;
+        }
+    }
+
+    // Key of the entry trusting the system CAs.
+    private static final String SYSTEM_KEY = "";
+
+    private static final HashMap<String, Entry> sEntries = new HashMap<>();
+
+    private CocosSSLContextCache() {}
+
+    /**
+     * Context trusting the CAs loaded by {@code loader} from {@code caPath}, or the system CAs
+     * if {@code caPath} is null or empty. {@code loaderKind} names how {@code loader} parses
+     * the file. {@code loader} is only called when there is no up to date entry.
+     */
+    public static Entry get(String caPath, String loaderKind, KeyStoreLoader loader) throws Exception {
+        boolean system = caPath == null || caPath.isEmpty();
+        String key = system ? SYSTEM_KEY : loaderKind + ":" + caPath;
+        long lastModified = 0;
+        long length = 0;
+        if (!system && caPath.startsWith("/")) {
+            File file = new File(caPath);
+            lastModified = file.lastModified();
+            length = file.length();
+        }
+
+        synchronized (sEntries) {
+            Entry entry = sEntries.get(key);
+            if (entry != null && entry.mLastModified == lastModified && entry.mLength == length) {
+                return entry;
+            }
+        }
+
+        // parse outside the lock, a slow CA file doesn't hold up connections using other ones
+        KeyStore keyStore = system ? null : loader.load();
+        X509TrustManager trustManager = createTrustManager(keyStore);
+        SSLContext sslContext = SSLContext.getInstance("TLS");
+        sslContext.init(null, new TrustManager[] {trustManager}, null);
+        Entry entry = new Entry(keyStore, trustManager, sslContext, lastModified, length);
+
+        synchronized (sEntries) {
+            Entry current = sEntries.get(key);
+            if (current != null && current.mLastModified == lastModified && current.mLength == length) {
+                // loaded by another thread meanwhile, keep the one already handed out
+                return current;
+            }
+            sEntries.put(key, entry);
+        }
+        return entry;
+    }
+
+    public static void clear() {
+        synchronized (sEntries) {
+            sEntries.clear();
+        }
+    }
+
+    // A null keyStore gives the trust manager of the system CAs.
+    private static X509TrustManager createTrustManager(KeyStore keyStore) throws Exception {
+        TrustManagerFactory tmf = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        tmf.init(keyStore);
+        for (TrustManager trustManager : tmf.getTrustManagers()) {
+            if (trustManager instanceof X509TrustManager) {
+                return (X509TrustManager) trustManager;
+            }
+        }
+        throw new IllegalStateException("No X509TrustManager");
+    }
+}
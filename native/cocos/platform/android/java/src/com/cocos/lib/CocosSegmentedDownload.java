@@ -0,0 +1,400 @@
+/****************************************************************************
+ Copyright (c) 2022 Xiamen Yaji Software Co., Ltd.
+
+ http://www.cocos.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated engine source code (the "Software"), a limited,
+ worldwide, royalty-free, non-assignable, revocable and non-exclusive license
+ to use Cocos Creator solely to develop games on your target platforms. You shall
+ not use Cocos Creator software for developing other software or tools that's
+ used for developing games. You are not granted to publish, distribute,
+ sublicense, and/or sell copies of Cocos Creator.
+
+ The software or tools in this License Agreement are licensed, not sold.
+ Xiamen Yaji Software Co., Ltd. reserves all rights not expressly granted to you.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ****************************************************************************/
+
+package com.cocos.lib;
+
+import android.util.Log;
+
+import org.cocos2dx.okhttp3.Call;
+import org.cocos2dx.okhttp3.Callback;
+import org.cocos2dx.okhttp3.OkHttpClient;
+import org.cocos2dx.okhttp3.Request;
+import org.cocos2dx.okhttp3.Response;
+import org.cocos2dx.okio.BufferedSource;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Downloads one file over several connections, each of them fetching a byte range
+ * into a temp file preallocated to the full length. The ranges and how far each of
+ * them got are kept in the {@link CocosDownloadJournal} of the temp file, so an
+ * interrupted download resumes each range where it stopped.
+ */
+class CocosSegmentedDownload {
+    private static final String TAG = "CocosSegmentedDownload";
+
+    private static class Segment {
+        final int index;
+        final long start;
+        final long end; // inclusive
+        volatile long downloaded;
+
+        Segment(int index, long start, long end, long downloaded) {
+            this.index = index;
+            this.start = start;
+            this.end = end;
+            this.downloaded = downloaded;
+        }
+
+        long remaining() {
+            return end - start + 1 - downloaded;
+        }
+    }
+
+    private final CocosDownloader _downloader;
+    private final int _taskId;
+    private final String _url;
+    private final String[] _header;
+    private final File _tempFile;
+    private final File _finalFile;
+    private final CocosDownloadJournal _journal;
+    private final long _total;
+    private final Segment[] _segments;
+    private final long[] _syncSnapshot;
+    private String _contentDigest = null;
+
+    private final AtomicLong _downloadedBytes = new AtomicLong(0);
+    private final AtomicInteger _pendingSegments = new AtomicInteger(0);
+    private final AtomicBoolean _finished = new AtomicBoolean(false);
+    // _finished is set under it, so no range reports progress once the task is finished or cancelled
+    private final Object _progressLock = new Object();
+    // Ranges still reading, a failure is reported to the downloader once they all stopped.
+    private final AtomicInteger _activeReaders = new AtomicInteger(0);
+    private final AtomicBoolean _failureReported = new AtomicBoolean(false);
+    private volatile String _failure = null;
+    private volatile boolean _discardOnFailure = false;
+    private Call[] _calls;
+    private RandomAccessFile _dataFile;
+    private FileChannel _dataChannel;
+
+    private CocosSegmentedDownload(CocosDownloader downloader, int taskId, String url, String[] header,
+                                   File tempFile, File finalFile, CocosDownloadJournal journal) {
+        _downloader = downloader;
+        _taskId = taskId;
+        _url = url;
+        _header = header;
+        _tempFile = tempFile;
+        _finalFile = finalFile;
+        _journal = journal;
+        _total = journal.getTotal();
+        _segments = new Segment[journal.getSegmentCount()];
+        _syncSnapshot = new long[_segments.length];
+        for (int i = 0; i < _segments.length; i++) {
+            _segments[i] = new Segment(i, journal.getStart(i), journal.getEnd(i), journal.getValidated(i));
+            _downloadedBytes.addAndGet(_segments[i].downloaded);
+        }
+    }
+
+    // Expected SHA-256 of the whole file, checked before the temp file is renamed.
+    void setContentDigest(String contentDigest) {
+        _contentDigest = contentDigest;
+    }
+
+    /**
+     * Split a file of {@code total} bytes into {@code segmentCount} ranges of about the same size.
+     */
+    static CocosSegmentedDownload create(CocosDownloader downloader, int taskId, String url, String[] header,
+                                         File tempFile, File finalFile, long total, int segmentCount,
+                                         String etag, String lastModified) {
+        CocosDownloadJournal journal = CocosDownloadJournal.create(tempFile, total, etag, lastModified, segmentCount);
+        return new CocosSegmentedDownload(downloader, taskId, url, header, tempFile, finalFile, journal);
+    }
+
+    /**
+     * Continue the ranges recorded in {@code journal}. Returns null if the temp file doesn't
+     * match the journal, the caller drops both and downloads from scratch then.
+     */
+    static CocosSegmentedDownload resume(CocosDownloader downloader, int taskId, String url, String[] header,
+                                         File tempFile, File finalFile, CocosDownloadJournal journal) {
+        if (tempFile.length() != journal.getTotal()) return null;
+        return new CocosSegmentedDownload(downloader, taskId, url, header, tempFile, finalFile, journal);
+    }
+
+    /**
+     * Start fetching every unfinished range. {@code firstResponse} is the partial response of
+     * a {@code bytes=0-} request already in flight, it is reused for the first range and read on
+     * the calling thread. Pass null when resuming.
+     */
+    void start(OkHttpClient client, Response firstResponse) {
+        String validator = _journal.getValidator();
+        _calls = new Call[_segments.length];
+        for (Segment segment : _segments) {
+            if (segment.remaining() <= 0) continue;
+            _pendingSegments.incrementAndGet();
+            if (firstResponse != null && segment.index == 0) continue;
+
+            Request.Builder builder = new Request.Builder().url(_url);
+            for (int i = 0; i < _header.length / 2; i++) {
+                builder.addHeader(_header[i * 2], _header[(i * 2) + 1]);
+            }
+            builder.addHeader("RANGE", "bytes=" + (segment.start + segment.downloaded) + "-" + segment.end);
+            if (validator != null) {
+                builder.addHeader("If-Range", validator);
+            }
+            _calls[segment.index] = client.newCall(builder.build());
+        }
+
+        try {
+            open();
+        } catch (IOException e) {
+            if (firstResponse != null) {
+                firstResponse.close();
+            }
+            fail(e.toString(), false);
+            return;
+        }
+
+        if (_pendingSegments.get() == 0) {
+            complete();
+            return;
+        }
+
+        for (final Segment segment : _segments) {
+            Call call = _calls[segment.index];
+            if (call == null) continue;
+            call.enqueue(new Callback() {
+                @Override
+                public void onFailure(Call call, IOException e) {
+                    fail(e.toString(), false);
+                }
+
+                @Override
+                public void onResponse(Call call, Response response) {
+                    try {
+                        if (response.code() != 206) {
+                            // 200 means the file changed on server since the ranges were planned
+                            fail("Range request of segment " + segment.index + " failed: " + response.code() + " " + response.message(),
+                                    response.code() == 200);
+                            return;
+                        }
+                        readSegment(response.body().source(), segment);
+                    } finally {
+                        response.close();
+                    }
+                }
+            });
+        }
+
+        if (firstResponse != null) {
+            try {
+                readSegment(firstResponse.body().source(), _segments[0]);
+            } finally {
+                firstResponse.close();
+            }
+        }
+    }
+
+    void cancel() {
+        if (!markFinished()) return;
+        cancelCalls();
+        syncJournal();
+        closeFiles();
+    }
+
+    private void open() throws IOException {
+        _dataFile = new RandomAccessFile(_tempFile, "rw");
+        if (_tempFile.length() != _total) {
+            _dataFile.setLength(_total);
+        }
+        _dataChannel = _dataFile.getChannel();
+        _journal.open();
+    }
+
+    private boolean markFinished() {
+        synchronized (_progressLock) {
+            return _finished.compareAndSet(false, true);
+        }
+    }
+
+    private void readSegment(BufferedSource source, Segment segment) {
+        _activeReaders.incrementAndGet();
+        try {
+            readSegmentData(source, segment);
+        } finally {
+            if (_activeReaders.decrementAndGet() == 0) {
+                reportFailure();
+            }
+        }
+    }
+
+    private void readSegmentData(BufferedSource source, Segment segment) {
+        ByteBuffer writeBuffer = CocosDownloader.sWriteBuffer.get();
+        writeBuffer.clear();
+        try {
+            while (segment.remaining() > 0 && !_finished.get()) {
+                writeBuffer.limit((int) Math.min(writeBuffer.capacity(), segment.remaining()));
+                // fill the buffer before writing, so writes to file are large
+                int len = 0;
+                while (writeBuffer.hasRemaining()) {
+                    len = source.read(writeBuffer);
+                    if (len == -1) break;
+                }
+                writeBuffer.flip();
+                int written = writeBuffer.remaining();
+                long position = segment.start + segment.downloaded;
+                while (writeBuffer.hasRemaining()) {
+                    position += _dataChannel.write(writeBuffer, position);
+                }
+                writeBuffer.clear();
+                if (written > 0) {
+                    segment.downloaded += written;
+                    if (_journal.onWritten(written)) {
+                        syncJournal();
+                    }
+                    synchronized (_progressLock) {
+                        if (_finished.get()) break;
+                        _downloader.onProgress(_taskId, written, _downloadedBytes.addAndGet(written), _total);
+                    }
+                }
+                if (len == -1) break;
+            }
+        } catch (IOException e) {
+            fail(e.toString(), false);
+            return;
+        }
+
+        if (_finished.get()) return;
+        if (segment.remaining() > 0) {
+            fail("Segment " + segment.index + " ended early, " + segment.remaining() + " bytes missing", false);
+            return;
+        }
+        if (_pendingSegments.decrementAndGet() == 0) {
+            complete();
+        }
+    }
+
+    // Record what all ranges have written so far, the snapshot is taken before data is flushed.
+    private void syncJournal() {
+        synchronized (_journal) {
+            for (Segment segment : _segments) {
+                _syncSnapshot[segment.index] = segment.downloaded;
+            }
+            try {
+                if (_dataChannel != null && _dataChannel.isOpen()) {
+                    _journal.sync(_dataChannel, _syncSnapshot);
+                }
+            } catch (IOException e) {
+                Log.e(TAG, "Can't sync journal: " + e.toString());
+            }
+        }
+    }
+
+    private void complete() {
+        if (!markFinished()) return;
+        closeFiles();
+
+        String errStr = null;
+        do {
+            if (_contentDigest != null) {
+                // ranges arrive out of order, so the digest is computed from the whole file
+                String digest = null;
+                try {
+                    digest = CocosContentStore.digestFile(_tempFile);
+                } catch (IOException e) {
+                    Log.e(TAG, e.toString());
+                }
+                if (!_contentDigest.equals(digest)) {
+                    _tempFile.delete();
+                    _journal.delete();
+                    errStr = "Content digest mismatch:" + _url;
+                    break;
+                }
+            }
+            // rename temp file to final file, if final file exist, remove it
+            if (_finalFile.exists()) {
+                if (_finalFile.isDirectory()) {
+                    break;
+                }
+                if (!_finalFile.delete()) {
+                    errStr = "Can't remove old file:" + _finalFile.getAbsolutePath();
+                    break;
+                }
+            }
+            _tempFile.renameTo(_finalFile);
+            _journal.delete();
+            if (_contentDigest != null) {
+                CocosContentStore.store(_contentDigest, _finalFile);
+            }
+        } while (false);
+        _downloader.onFinish(_taskId, 0, errStr, null);
+    }
+
+    // Keep the temp file and journal unless discarded, the next attempt resumes from them.
+    private void fail(String errStr, boolean discard) {
+        synchronized (_progressLock) {
+            if (_finished.get()) return;
+            _failure = errStr;
+            _discardOnFailure = discard;
+            _finished.set(true);
+        }
+        // the other ranges stop at their next read, the last one to stop reports the failure
+        cancelCalls();
+        if (_activeReaders.get() == 0) {
+            reportFailure();
+        }
+    }
+
+    private void reportFailure() {
+        if (_failure == null || !_failureReported.compareAndSet(false, true)) return;
+        if (_discardOnFailure) {
+            closeFiles();
+            _journal.delete();
+            _tempFile.delete();
+        } else {
+            syncJournal();
+            closeFiles();
+        }
+        _downloader.onFinish(_taskId, 0, _failure, null);
+    }
+
+    private void cancelCalls() {
+        if (_calls == null) return;
+        for (Call call : _calls) {
+            if (call != null) {
+                call.cancel();
+            }
+        }
+    }
+
+    private void closeFiles() {
+        try {
+            if (_dataChannel != null) {
+                _dataChannel.close();
+            } else if (_dataFile != null) {
+                _dataFile.close();
+            }
+        } catch (IOException e) {
+            Log.e(TAG, e.toString());
+        }
+        _journal.close();
+    }
+}
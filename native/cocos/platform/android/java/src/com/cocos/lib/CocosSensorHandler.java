@@ -31,23 +31,80 @@ import android.hardware.SensorEvent;
 import android.hardware.SensorEventListener;
 import android.hardware.SensorManager;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicInteger;
+
 public class CocosSensorHandler implements SensorEventListener {
     // ===========================================================
     // Constants
     // ===========================================================
 
     private static final String TAG = "CocosSensorHandler";
+
+    // Sensors that can be registered, see setMotionSensors.
+    public static final int SENSOR_ACCELEROMETER = 1;
+    public static final int SENSOR_LINEAR_ACCELERATION = 1 << 1;
+    public static final int SENSOR_GYROSCOPE = 1 << 2;
+    // Orientation from accelerometer and gyroscope, it drifts around the vertical axis.
+    public static final int SENSOR_GAME_ROTATION_VECTOR = 1 << 3;
+    // Orientation relative to magnetic north, used if SENSOR_GAME_ROTATION_VECTOR isn't set.
+    public static final int SENSOR_ROTATION_VECTOR = 1 << 4;
+    public static final int SENSOR_GRAVITY = 1 << 5;
+    public static final int DEFAULT_SENSORS = SENSOR_ACCELEROMETER | SENSOR_LINEAR_ACCELERATION | SENSOR_GYROSCOPE;
+
+    // Sampling period in adaptive mode while the window has no focus, e.g. under a dialog.
+    private static final int UNFOCUSED_SAMPLING_PERIOD_US = 200000;
+
     private static CocosSensorHandler mSensorHandler;
     private static boolean mEnableSensor = false;
+    private static boolean sAdaptiveSampling = false;
+    private static int sFrameRate = 60;
 
     private final Context mContext;
     private final SensorManager mSensorManager;
     private final Sensor mAcceleration;
     private final Sensor mAccelerationIncludingGravity;
     private final Sensor mGyroscope;
+    private final Sensor mGameRotationVector;
+    private final Sensor mRotationVector;
+    private final Sensor mGravity;
+    private int mSensors = DEFAULT_SENSORS;
+    private final float[] mQuaternion = new float[4];
     private int mSamplingPeriodUs = SensorManager.SENSOR_DELAY_GAME;
+    // Samples may be held in the sensor hub this long and delivered in a batch, 0 to disable.
+    private int mMaxReportLatencyUs = 0;
+    private boolean mPaused = false;
+    private boolean mHasFocus = true;
+    private boolean mRegistered = false;
+    // Moving average of the interval between samples of each sensor, for the effective rate.
+    private final long[] mLastSampleTimes = new long[5];
+    private final long[] mSampleIntervals = new long[5];
 
-    private static float[] sDeviceMotionValues = new float[9];
+    // Values: acceleration including gravity(3), acceleration(3), rotation rate(3),
+    // quaternion x y z w(4), gravity(3). Native reads the first 9 through getDeviceMotionValue.
+    private static float[] sDeviceMotionValues = new float[16];
+    // Timestamps: accelerometer, linear acceleration, gyroscope, rotation vector, gravity.
+    private static long[] sDeviceMotionTimestamps = new long[5];
+
+    // Snapshot of sDeviceMotionValues that native reads every frame without JNI. It has two
+    // slots, each guarded by its own sequence number: the writer fills the slot not pointed
+    // to by SNAPSHOT_LATEST, bumping its sequence to odd before and to even after, then
+    // points SNAPSHOT_LATEST to it. A reader copies the latest slot and retries only if its
+    // sequence was odd or changed meanwhile, that is if the writer lapped it.
+    // Header: latest(int) reserved(int). Slot: sequence(int) reserved(int)
+    // timestamps(long[5], ns) values(float[16]), as in sDeviceMotionTimestamps and sDeviceMotionValues.
+    private static final int SNAPSHOT_LATEST = 0;
+    private static final int SNAPSHOT_HEADER_SIZE = 8;
+    private static final int SLOT_SEQUENCE = 0;
+    private static final int SLOT_TIMESTAMPS = 8;
+    private static final int SLOT_VALUES = 48;
+    private static final int SLOT_SIZE = 128;
+    private static final ByteBuffer sSnapshot = ByteBuffer.allocateDirect(SNAPSHOT_HEADER_SIZE + 2 * SLOT_SIZE)
+            .order(ByteOrder.nativeOrder());
+    private static int sSnapshotLatest = 0;
+    // A store then a load of this sequence fences the snapshot stores, see snapshotStoreFence.
+    private static final AtomicInteger sSnapshotFence = new AtomicInteger();
 
     // ===========================================================
     // Constructors
@@ -60,6 +117,9 @@ public class CocosSensorHandler implements SensorEventListener {
         mAcceleration = mSensorManager.getDefaultSensor(Sensor.TYPE_ACCELEROMETER);
         mAccelerationIncludingGravity = mSensorManager.getDefaultSensor(Sensor.TYPE_LINEAR_ACCELERATION);
         mGyroscope = mSensorManager.getDefaultSensor(Sensor.TYPE_GYROSCOPE);
+        mGameRotationVector = mSensorManager.getDefaultSensor(Sensor.TYPE_GAME_ROTATION_VECTOR);
+        mRotationVector = mSensorManager.getDefaultSensor(Sensor.TYPE_ROTATION_VECTOR);
+        mGravity = mSensorManager.getDefaultSensor(Sensor.TYPE_GRAVITY);
 
         mSensorHandler = this;
     }
@@ -67,25 +127,98 @@ public class CocosSensorHandler implements SensorEventListener {
     // ===========================================================
     // Getter & Setter
     // ===========================================================
-    public void enable() {
-        if (mEnableSensor) {
-            mSensorManager.registerListener(this, mAcceleration, mSamplingPeriodUs);
-            mSensorManager.registerListener(this, mAccelerationIncludingGravity, mSamplingPeriodUs);
-            mSensorManager.registerListener(this, mGyroscope, mSamplingPeriodUs);
+    public synchronized void enable() {
+        mSensorManager.unregisterListener(this);
+        mRegistered = false;
+        for (int i = 0; i < mSampleIntervals.length; i++) {
+            mLastSampleTimes[i] = 0;
+            mSampleIntervals[i] = 0;
+        }
+        if (mEnableSensor && !mPaused) {
+            mRegistered = true;
+            registerSensor(SENSOR_ACCELEROMETER, mAcceleration);
+            registerSensor(SENSOR_LINEAR_ACCELERATION, mAccelerationIncludingGravity);
+            registerSensor(SENSOR_GYROSCOPE, mGyroscope);
+            if ((mSensors & SENSOR_GAME_ROTATION_VECTOR) != 0) {
+                registerSensor(SENSOR_GAME_ROTATION_VECTOR, mGameRotationVector);
+            } else {
+                registerSensor(SENSOR_ROTATION_VECTOR, mRotationVector);
+            }
+            registerSensor(SENSOR_GRAVITY, mGravity);
+        }
+    }
+
+    private void registerSensor(int flag, Sensor sensor) {
+        if ((mSensors & flag) != 0 && sensor != null) {
+            mSensorManager.registerListener(this, sensor, getSamplingPeriodUs(), mMaxReportLatencyUs);
+        }
+    }
+
+    public synchronized void disable() {
+        mSensorManager.unregisterListener(this);
+        mRegistered = false;
+    }
+
+    // In adaptive mode sample no faster than frames are drawn, and slowly without focus.
+    private int getSamplingPeriodUs() {
+        if (!sAdaptiveSampling) {
+            return mSamplingPeriodUs;
         }
+        if (!mHasFocus) {
+            return UNFOCUSED_SAMPLING_PERIOD_US;
+        }
+        int framePeriodUs = 1000000 / Math.max(1, sFrameRate);
+        // values up to SENSOR_DELAY_NORMAL are SENSOR_DELAY_* constants, not microseconds
+        return mSamplingPeriodUs > SensorManager.SENSOR_DELAY_NORMAL ? Math.max(framePeriodUs, mSamplingPeriodUs) : framePeriodUs;
+    }
+
+    // Rate in Hz the fastest registered sensor delivers samples at, 0 if none is registered.
+    public synchronized float getMeasuredSamplingRate() {
+        if (!mRegistered) return 0;
+        long interval = 0;
+        for (long sampleInterval : mSampleIntervals) {
+            if (sampleInterval > 0 && (interval == 0 || sampleInterval < interval)) {
+                interval = sampleInterval;
+            }
+        }
+        return interval == 0 ? 0 : 1e9f / interval;
     }
 
-    public void disable() {
-        if (mEnableSensor) {
-            this.mSensorManager.unregisterListener(this);
+    private void onSample(int index, long timestamp) {
+        long last = mLastSampleTimes[index];
+        if (last > 0 && timestamp > last) {
+            long interval = timestamp - last;
+            mSampleIntervals[index] = mSampleIntervals[index] == 0 ? interval : mSampleIntervals[index] + (interval - mSampleIntervals[index]) / 8;
         }
+        mLastSampleTimes[index] = timestamp;
+        sDeviceMotionTimestamps[index] = timestamp;
     }
 
     public void setInterval(float interval) {
         if (android.os.Build.VERSION.SDK_INT >= 11) {
             mSamplingPeriodUs = (int) (interval * 1000000);
         }
-        disable();
+        enable();
+    }
+
+    public void setSensors(int sensors) {
+        mSensors = sensors;
+        enable();
+    }
+
+    public int getAvailableSensors() {
+        int sensors = 0;
+        if (mAcceleration != null) sensors |= SENSOR_ACCELEROMETER;
+        if (mAccelerationIncludingGravity != null) sensors |= SENSOR_LINEAR_ACCELERATION;
+        if (mGyroscope != null) sensors |= SENSOR_GYROSCOPE;
+        if (mGameRotationVector != null) sensors |= SENSOR_GAME_ROTATION_VECTOR;
+        if (mRotationVector != null) sensors |= SENSOR_ROTATION_VECTOR;
+        if (mGravity != null) sensors |= SENSOR_GRAVITY;
+        return sensors;
+    }
+
+    public void setMaxReportLatency(int maxReportLatencyUs) {
+        mMaxReportLatencyUs = Math.max(0, maxReportLatencyUs);
         enable();
     }
 
@@ -101,16 +234,65 @@ public class CocosSensorHandler implements SensorEventListener {
             // Issue https://github.com/cocos-creator/2d-tasks/issues/2532
             // use negative event.acceleration.z to match iOS value
             sDeviceMotionValues[2] = -sensorEvent.values[2];
+            onSample(0, sensorEvent.timestamp);
         } else if (type == Sensor.TYPE_LINEAR_ACCELERATION) {
             sDeviceMotionValues[3] = sensorEvent.values[0];
             sDeviceMotionValues[4] = sensorEvent.values[1];
             sDeviceMotionValues[5] = sensorEvent.values[2];
+            onSample(1, sensorEvent.timestamp);
         } else if (type == Sensor.TYPE_GYROSCOPE) {
             // The unit is rad/s, need to be converted to deg/s
             sDeviceMotionValues[6] = (float) Math.toDegrees(sensorEvent.values[0]);
             sDeviceMotionValues[7] = (float) Math.toDegrees(sensorEvent.values[1]);
             sDeviceMotionValues[8] = (float) Math.toDegrees(sensorEvent.values[2]);
+            onSample(2, sensorEvent.timestamp);
+        } else if (type == Sensor.TYPE_GAME_ROTATION_VECTOR || type == Sensor.TYPE_ROTATION_VECTOR) {
+            // in the device frame, as given by the sensor, w comes first
+            SensorManager.getQuaternionFromVector(mQuaternion, sensorEvent.values);
+            sDeviceMotionValues[9] = mQuaternion[1];
+            sDeviceMotionValues[10] = mQuaternion[2];
+            sDeviceMotionValues[11] = mQuaternion[3];
+            sDeviceMotionValues[12] = mQuaternion[0];
+            onSample(3, sensorEvent.timestamp);
+        } else if (type == Sensor.TYPE_GRAVITY) {
+            // negative z like the accelerometer, so both can be compared
+            sDeviceMotionValues[13] = sensorEvent.values[0];
+            sDeviceMotionValues[14] = sensorEvent.values[1];
+            sDeviceMotionValues[15] = -sensorEvent.values[2];
+            onSample(4, sensorEvent.timestamp);
+        } else {
+            return;
         }
+        publishSnapshot();
+    }
+
+    // Called on the thread delivering sensor events, the only writer of the snapshot.
+    private static void publishSnapshot() {
+        int slot = sSnapshotLatest ^ 1;
+        int base = SNAPSHOT_HEADER_SIZE + slot * SLOT_SIZE;
+        int sequence = sSnapshot.getInt(base + SLOT_SEQUENCE);
+        sSnapshot.putInt(base + SLOT_SEQUENCE, sequence + 1);
+        snapshotStoreFence();
+        for (int i = 0; i < sDeviceMotionTimestamps.length; i++) {
+            sSnapshot.putLong(base + SLOT_TIMESTAMPS + i * 8, sDeviceMotionTimestamps[i]);
+        }
+        for (int i = 0; i < sDeviceMotionValues.length; i++) {
+            sSnapshot.putFloat(base + SLOT_VALUES + i * 4, sDeviceMotionValues[i]);
+        }
+        snapshotStoreFence();
+        sSnapshot.putInt(base + SLOT_SEQUENCE, sequence + 2);
+        snapshotStoreFence();
+        sSnapshot.putInt(SNAPSHOT_LATEST, slot);
+        sSnapshotLatest = slot;
+    }
+
+    // Makes the snapshot stores before it visible to native ahead of those after it. A volatile
+    // store alone only orders the stores before it, so later ones could pass an odd sequence.
+    private static void snapshotStoreFence() {
+        // Release store then acquire load of the same variable: earlier stores stay before the
+        // store, later ones after the load, and the load can't pass the store.
+        sSnapshotFence.set(sSnapshotFence.get() + 1);
+        sSnapshotFence.get();
     }
 
     @Override
@@ -118,17 +300,72 @@ public class CocosSensorHandler implements SensorEventListener {
     }
 
     public void onPause() {
+        mPaused = true;
         disable();
     }
 
     public void onResume() {
+        mPaused = false;
         enable();
     }
 
+    public void onWindowFocusChanged(boolean hasFocus) {
+        mHasFocus = hasFocus;
+        if (sAdaptiveSampling) {
+            enable();
+        }
+    }
+
     public static void setAccelerometerInterval(float interval) {
         mSensorHandler.setInterval(interval);
     }
 
+    /**
+     * Let the sensor hub batch samples for up to {@code maxReportLatencyUs} before waking the
+     * application, to save battery. Every sample keeps its timestamp in the snapshot.
+     */
+    public static void setAccelerometerMaxReportLatency(int maxReportLatencyUs) {
+        mSensorHandler.setMaxReportLatency(maxReportLatencyUs);
+    }
+
+    /**
+     * Choose the sensors registered while the accelerometer is enabled, a combination of the
+     * SENSOR_* flags. Sensors not chosen are never registered, so they cost no power.
+     */
+    public static void setMotionSensors(int sensors) {
+        mSensorHandler.setSensors(sensors);
+    }
+
+    // SENSOR_* flags of the sensors this device has.
+    public static int getAvailableMotionSensors() {
+        return mSensorHandler.getAvailableSensors();
+    }
+
+    /**
+     * In adaptive mode the sampling period follows the frame rate of the game, the interval
+     * set by setAccelerometerInterval becomes a lower bound, and sensors slow down while the
+     * window has no focus. They are unregistered while paused in both modes.
+     */
+    public static void setAdaptiveSampling(boolean adaptive) {
+        sAdaptiveSampling = adaptive;
+        if (mSensorHandler != null) {
+            mSensorHandler.enable();
+        }
+    }
+
+    // Called from native when the preferred frame rate of the game changes.
+    public static void setFrameRate(int frameRate) {
+        if (frameRate <= 0 || frameRate == sFrameRate) return;
+        sFrameRate = frameRate;
+        if (sAdaptiveSampling && mSensorHandler != null) {
+            mSensorHandler.enable();
+        }
+    }
+
+    public static float getEffectiveSamplingRate() {
+        return mSensorHandler == null ? 0 : mSensorHandler.getMeasuredSamplingRate();
+    }
+
     public static void setAccelerometerEnabled(boolean enabled) {
         mEnableSensor = enabled;
         if (enabled) {
@@ -141,4 +378,9 @@ public class CocosSensorHandler implements SensorEventListener {
     public static float[] getDeviceMotionValue() {
         return sDeviceMotionValues;
     }
+
+    // Native keeps the address of this buffer, it lives as long as the class.
+    public static ByteBuffer getDeviceMotionSnapshot() {
+        return sSnapshot;
+    }
 }
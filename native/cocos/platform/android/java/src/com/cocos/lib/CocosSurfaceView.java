@@ -66,6 +66,10 @@ public class CocosSurfaceView extends SurfaceView implements android.view.Surfac
 
     @Override
     public boolean onTouchEvent(MotionEvent event) {
+        // Applies to the gesture this down event starts.
+        if (event.getActionMasked() == MotionEvent.ACTION_DOWN && CocosTouchHandler.isUnbufferedDispatch()) {
+            requestUnbufferedDispatch(event);
+        }
         return mTouchHandler.onTouchEvent(event);
     }
 
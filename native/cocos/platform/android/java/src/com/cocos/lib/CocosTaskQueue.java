@@ -0,0 +1,141 @@
+/****************************************************************************
+ Copyright (c) 2022 Xiamen Yaji Software Co., Ltd.
+
+ http://www.cocos.com
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated engine source code (the "Software"), a limited,
+ worldwide, royalty-free, non-assignable, revocable and non-exclusive license
+ to use Cocos Creator solely to develop games on your target platforms. You shall
+ not use Cocos Creator software for developing other software or tools that's
+ used for developing games. You are not granted to publish, distribute,
+ sublicense, and/or sell copies of Cocos Creator.
+
+ The software or tools in this License Agreement are licensed, not sold.
+ Xiamen Yaji Software Co., Ltd. reserves all rights not expressly granted to you.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ THE SOFTWARE.
+ ****************************************************************************/
+
+package com.cocos.lib;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Queue of runnables posted from any thread and run on the game thread. It is a ring of
+ * reused slots: posting claims a slot with a single CAS and allocates nothing, draining
+ * takes no lock. When the ring is full, runnables spill to an unbounded overflow queue
+ * until the game thread catches up, so posting never blocks and never drops a task.
+ *
+ * Only the game thread may call {@link #runTasks}.
+ */
+class CocosTaskQueue {
+    static final int DEFAULT_CAPACITY = 4096;
+
+    private final int mMask;
+    private final AtomicReferenceArray<Runnable> mSlots;
+    // Next slot to claim by producers, also the count of runnables put in the ring.
+    private final AtomicLong mTail = new AtomicLong(0);
+    // Next slot to run, only advanced by the game thread.
+    private final AtomicLong mHead = new AtomicLong(0);
+
+    // While anything is in overflow new runnables go there too, to keep them in order.
+    private final ConcurrentLinkedQueue<Runnable> mOverflow = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger mOverflowSize = new AtomicInteger(0);
+    private final AtomicLong mOverflowCount = new AtomicLong(0);
+
+    // Written by the game thread only.
+    private volatile long mMovedCount = 0;
+    private volatile long mExecutedCount = 0;
+    private volatile long mLastDrainNanos = 0;
+    private volatile long mMaxDrainNanos = 0;
+    private volatile int mCarriedOverCount = 0;
+
+    CocosTaskQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        mMask = size - 1;
+        mSlots = new AtomicReferenceArray<>(size);
+    }
+
+    void addTask(Runnable runnable) {
+        if (mOverflowSize.get() == 0 && offer(runnable)) return;
+        mOverflowSize.incrementAndGet();
+        mOverflowCount.incrementAndGet();
+        mOverflow.add(runnable);
+    }
+
+    private boolean offer(Runnable runnable) {
+        while (true) {
+            long tail = mTail.get();
+            if (tail - mHead.get() > mMask) return false;
+            if (mTail.compareAndSet(tail, tail + 1)) {
+                mSlots.lazySet((int) tail & mMask, runnable);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Run up to {@code maxTasks} runnables posted before this call, stopping early once
+     * {@code deadlineNanos} of {@link System#nanoTime} is reached, the rest is left for the
+     * next call. At least one runnable runs, so a queue is never starved by the deadline.
+     * Runnables posted while draining run next time, as do runnables whose slot is claimed
+     * but not written yet.
+     */
+    void runTasks(int maxTasks, long deadlineNanos) {
+        long startTime = System.nanoTime();
+        // Overflow only holds runnables newer than those in the ring, move them back to its end.
+        // The size drops after the move, so a producer can't get ahead of its own overflowed runnable.
+        while (mOverflowSize.get() > 0) {
+            Runnable runnable = mOverflow.peek();
+            if (runnable == null || !offer(runnable)) break;
+            mOverflow.poll();
+            mOverflowSize.decrementAndGet();
+            mMovedCount++;
+        }
+
+        long head = mHead.get();
+        long end = mTail.get();
+        int count = 0;
+        while (head < end && count < maxTasks) {
+            int index = (int) head & mMask;
+            Runnable runnable = mSlots.get(index);
+            if (runnable == null) break;
+            mSlots.lazySet(index, null);
+            mHead.lazySet(++head);
+            count++;
+            runnable.run();
+            if (deadlineNanos != Long.MAX_VALUE && System.nanoTime() >= deadlineNanos) break;
+        }
+
+        long drainTime = System.nanoTime() - startTime;
+        mExecutedCount += count;
+        mLastDrainNanos = drainTime;
+        if (drainTime > mMaxDrainNanos) {
+            mMaxDrainNanos = drainTime;
+        }
+        mCarriedOverCount = (int) (mTail.get() - head) + mOverflowSize.get();
+    }
+
+    /**
+     * Fill {@code stats} with: runnables posted, runnables run, posted to overflow since the
+     * ring was full, pending after the last drain, last drain time and max drain time in ns.
+     */
+    void getStats(long[] stats) {
+        stats[0] = mTail.get() - mMovedCount + mOverflowCount.get();
+        stats[1] = mExecutedCount;
+        stats[2] = mOverflowCount.get();
+        stats[3] = mCarriedOverCount;
+        stats[4] = mLastDrainNanos;
+        stats[5] = mMaxDrainNanos;
+    }
+}
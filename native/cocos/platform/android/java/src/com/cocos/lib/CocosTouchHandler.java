@@ -30,28 +30,51 @@ import android.view.MotionEvent;
 import android.view.Surface;
 import android.view.SurfaceView;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
 public class CocosTouchHandler {
     public final static String TAG = "CocosTouchHandler";
     private boolean mStopHandleTouchAndKeyEvents = false;
     private int mWindowId;
 
+    // Event types of a batch, same values as cc::TouchEvent::Type.
+    private static final int TOUCH_BEGAN = 0;
+    private static final int TOUCH_MOVED = 1;
+    private static final int TOUCH_ENDED = 2;
+    private static final int TOUCH_CANCELLED = 3;
+
+    // Event header: type(int) pointerCount(int), then per pointer: id(int) x(float) y(float).
+    // With TOUCH_EXTENDED set in type, the header is followed by the event time(long) in ns
+    // and each pointer by its pressure(float) and size(float).
+    private static final int TOUCH_EXTENDED = 0x100;
+    private static final int EVENT_HEADER_SIZE = 8;
+    private static final int POINTER_SIZE = 12;
+    private static final int EXTENDED_HEADER_SIZE = 16;
+    private static final int EXTENDED_POINTER_SIZE = 20;
+    private static final int INITIAL_BATCH_SIZE = 16 * 1024;
+
+    private static volatile boolean sHighFidelityInput = false;
+    private static volatile boolean sUnbufferedDispatch = false;
+
+    // Touches of a frame are written to the back buffer on UI thread, the game thread swaps the
+    // buffers and hands the front one to native in a single call.
+    private final Object mBatchLock = new Object();
+    private ByteBuffer mBackBatch = allocateBatch(INITIAL_BATCH_SIZE);
+    private ByteBuffer mFrontBatch = allocateBatch(INITIAL_BATCH_SIZE);
+    private boolean mFlushScheduled = false;
+    private final Runnable mFlushRunnable = new Runnable() {
+        @Override
+        public void run() {
+            flushTouches();
+        }
+    };
+
     public CocosTouchHandler(int windowId) {
         mWindowId = windowId;
     }
 
     boolean onTouchEvent(MotionEvent pMotionEvent) {
-        // these data are used in ACTION_MOVE and ACTION_CANCEL
-        final int pointerNumber = pMotionEvent.getPointerCount();
-        final int[] ids = new int[pointerNumber];
-        final float[] xs = new float[pointerNumber];
-        final float[] ys = new float[pointerNumber];
-
-        for (int i = 0; i < pointerNumber; i++) {
-            ids[i] = pMotionEvent.getPointerId(i);
-            xs[i] = pMotionEvent.getX(i);
-            ys[i] = pMotionEvent.getY(i);
-        }
-
         switch (pMotionEvent.getAction() & MotionEvent.ACTION_MASK) {
             case MotionEvent.ACTION_POINTER_DOWN:
                 if (mStopHandleTouchAndKeyEvents) {
@@ -60,15 +83,7 @@ public class CocosTouchHandler {
                 }
 
                 final int indexPointerDown = pMotionEvent.getAction() >> MotionEvent.ACTION_POINTER_INDEX_SHIFT;
-                final int idPointerDown = pMotionEvent.getPointerId(indexPointerDown);
-                final float xPointerDown = pMotionEvent.getX(indexPointerDown);
-                final float yPointerDown = pMotionEvent.getY(indexPointerDown);
-                CocosHelper.runOnGameThreadAtForeground(new Runnable() {
-                    @Override
-                    public void run() {
-                        handleActionDown(mWindowId, idPointerDown, xPointerDown, yPointerDown);
-                    }
-                });
+                addPointer(TOUCH_BEGAN, pMotionEvent, indexPointerDown);
                 break;
 
             case MotionEvent.ACTION_DOWN:
@@ -78,64 +93,25 @@ public class CocosTouchHandler {
                 }
 
                 // there are only one finger on the screen
-                final int idDown = pMotionEvent.getPointerId(0);
-                final float xDown = xs[0];
-                final float yDown = ys[0];
-
-                CocosHelper.runOnGameThreadAtForeground(new Runnable() {
-                    @Override
-                    public void run() {
-                        handleActionDown(mWindowId, idDown, xDown, yDown);
-                    }
-                });
-
+                addPointer(TOUCH_BEGAN, pMotionEvent, 0);
                 break;
 
             case MotionEvent.ACTION_MOVE:
-                CocosHelper.runOnGameThreadAtForeground(new Runnable() {
-                    @Override
-                    public void run() {
-                        handleActionMove(mWindowId, ids, xs, ys);
-                    }
-                });
-
+                addPointers(TOUCH_MOVED, pMotionEvent);
                 break;
 
             case MotionEvent.ACTION_POINTER_UP:
                 final int indexPointUp = pMotionEvent.getAction() >> MotionEvent.ACTION_POINTER_INDEX_SHIFT;
-                final int idPointerUp = pMotionEvent.getPointerId(indexPointUp);
-                final float xPointerUp = pMotionEvent.getX(indexPointUp);
-                final float yPointerUp = pMotionEvent.getY(indexPointUp);
-                CocosHelper.runOnGameThreadAtForeground(new Runnable() {
-                    @Override
-                    public void run() {
-                        handleActionUp(mWindowId, idPointerUp, xPointerUp, yPointerUp);
-                    }
-                });
-
+                addPointer(TOUCH_ENDED, pMotionEvent, indexPointUp);
                 break;
 
             case MotionEvent.ACTION_UP:
                 // there are only one finger on the screen
-                final int idUp = pMotionEvent.getPointerId(0);
-                final float xUp = xs[0];
-                final float yUp = ys[0];
-                CocosHelper.runOnGameThreadAtForeground(new Runnable() {
-                    @Override
-                    public void run() {
-                        handleActionUp(mWindowId, idUp, xUp, yUp);
-                    }
-                });
-
+                addPointer(TOUCH_ENDED, pMotionEvent, 0);
                 break;
 
             case MotionEvent.ACTION_CANCEL:
-                CocosHelper.runOnGameThreadAtForeground(new Runnable() {
-                    @Override
-                    public void run() {
-                        handleActionCancel(mWindowId, ids, xs, ys);
-                    }
-                });
+                addPointers(TOUCH_CANCELLED, pMotionEvent);
                 break;
         }
 
@@ -173,12 +149,120 @@ public class CocosTouchHandler {
         Log.d(TAG, sb.toString());
     }
 
-    private native void handleActionDown(int windowId, final int id, final float x, final float y);
+    private static ByteBuffer allocateBatch(int capacity) {
+        return ByteBuffer.allocateDirect(capacity).order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * High fidelity input adds the event time, pressure and size to every touch sample, for
+     * latency compensation and touch prediction. With {@code unbufferedDispatch}, the surface
+     * view also asks for touches at the rate of the touch screen instead of once per vsync.
+     */
+    public static void setHighFidelityInput(boolean enabled, boolean unbufferedDispatch) {
+        sHighFidelityInput = enabled;
+        sUnbufferedDispatch = unbufferedDispatch;
+    }
+
+    static boolean isUnbufferedDispatch() {
+        return sHighFidelityInput && sUnbufferedDispatch;
+    }
+
+    // Event times are in the SystemClock.uptimeMillis time base, that is CLOCK_MONOTONIC.
+    private static long toNanos(long eventTimeMillis) {
+        return eventTimeMillis * 1000000L;
+    }
 
-    private native void handleActionMove(int windowId, final int[] ids, final float[] xPointerList, final float[] yPointerList);
+    private void addPointer(int type, MotionEvent event, int index) {
+        boolean extended = sHighFidelityInput;
+        synchronized (mBatchLock) {
+            if (extended) {
+                ensureBatchCapacity(EXTENDED_HEADER_SIZE + EXTENDED_POINTER_SIZE);
+                mBackBatch.putInt(type | TOUCH_EXTENDED).putInt(1).putLong(toNanos(event.getEventTime()));
+                mBackBatch.putInt(event.getPointerId(index)).putFloat(event.getX(index)).putFloat(event.getY(index))
+                        .putFloat(event.getPressure(index)).putFloat(event.getSize(index));
+            } else {
+                ensureBatchCapacity(EVENT_HEADER_SIZE + POINTER_SIZE);
+                mBackBatch.putInt(type).putInt(1);
+                mBackBatch.putInt(event.getPointerId(index)).putFloat(event.getX(index)).putFloat(event.getY(index));
+            }
+            scheduleFlush();
+        }
+    }
 
-    private native void handleActionUp(int windowId, final int id, final float x, final float y);
+    // Moves batched by Android since the last event are sent too, oldest first.
+    private void addPointers(int type, MotionEvent event) {
+        boolean extended = sHighFidelityInput;
+        int pointerCount = event.getPointerCount();
+        int historySize = type == TOUCH_MOVED ? event.getHistorySize() : 0;
+        synchronized (mBatchLock) {
+            if (extended) {
+                ensureBatchCapacity((historySize + 1) * (EXTENDED_HEADER_SIZE + pointerCount * EXTENDED_POINTER_SIZE));
+                for (int h = 0; h < historySize; h++) {
+                    mBackBatch.putInt(type | TOUCH_EXTENDED).putInt(pointerCount)
+                            .putLong(toNanos(event.getHistoricalEventTime(h)));
+                    for (int i = 0; i < pointerCount; i++) {
+                        mBackBatch.putInt(event.getPointerId(i))
+                                .putFloat(event.getHistoricalX(i, h))
+                                .putFloat(event.getHistoricalY(i, h))
+                                .putFloat(event.getHistoricalPressure(i, h))
+                                .putFloat(event.getHistoricalSize(i, h));
+                    }
+                }
+                mBackBatch.putInt(type | TOUCH_EXTENDED).putInt(pointerCount).putLong(toNanos(event.getEventTime()));
+                for (int i = 0; i < pointerCount; i++) {
+                    mBackBatch.putInt(event.getPointerId(i)).putFloat(event.getX(i)).putFloat(event.getY(i))
+                            .putFloat(event.getPressure(i)).putFloat(event.getSize(i));
+                }
+            } else {
+                ensureBatchCapacity((historySize + 1) * (EVENT_HEADER_SIZE + pointerCount * POINTER_SIZE));
+                for (int h = 0; h < historySize; h++) {
+                    mBackBatch.putInt(type).putInt(pointerCount);
+                    for (int i = 0; i < pointerCount; i++) {
+                        mBackBatch.putInt(event.getPointerId(i))
+                                .putFloat(event.getHistoricalX(i, h))
+                                .putFloat(event.getHistoricalY(i, h));
+                    }
+                }
+                mBackBatch.putInt(type).putInt(pointerCount);
+                for (int i = 0; i < pointerCount; i++) {
+                    mBackBatch.putInt(event.getPointerId(i)).putFloat(event.getX(i)).putFloat(event.getY(i));
+                }
+            }
+            scheduleFlush();
+        }
+    }
+
+    private void ensureBatchCapacity(int size) {
+        if (mBackBatch.remaining() >= size) return;
+        // The game thread is behind, grow instead of dropping touches.
+        ByteBuffer batch = allocateBatch(Math.max(mBackBatch.capacity() * 2, mBackBatch.position() + size));
+        mBackBatch.flip();
+        batch.put(mBackBatch);
+        mBackBatch = batch;
+    }
+
+    private void scheduleFlush() {
+        if (!mFlushScheduled) {
+            mFlushScheduled = true;
+            CocosHelper.runOnGameThreadAtForeground(mFlushRunnable, CocosHelper.TASK_LANE_INPUT);
+        }
+    }
+
+    // Run on game thread, delivers every touch since the last flush in one native call.
+    private void flushTouches() {
+        ByteBuffer batch;
+        synchronized (mBatchLock) {
+            batch = mBackBatch;
+            mBackBatch = mFrontBatch;
+            mFrontBatch = batch;
+            mFlushScheduled = false;
+        }
+        if (batch.position() > 0) {
+            handleTouchBatch(mWindowId, batch, batch.position());
+        }
+        batch.clear();
+    }
 
-    private native void handleActionCancel(int windowId, final int[] ids, final float[] xPointerList, final float[] yPointerList);
+    private native void handleTouchBatch(int windowId, ByteBuffer batch, int length);
 
 }
@@ -4,6 +4,7 @@ import android.os.Build;
 import android.util.Log;
 
 import com.cocos.lib.CocosHelper;
+import com.cocos.lib.CocosSSLContextCache;
 
 import org.cocos2dx.okhttp3.CipherSuite;
 import org.cocos2dx.okhttp3.Dispatcher;
@@ -17,7 +18,6 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
-import java.security.GeneralSecurityException;
 import java.security.KeyManagementException;
 import java.security.KeyStore;
 import java.security.NoSuchAlgorithmException;
@@ -171,21 +171,31 @@ public class CocosWebSocket extends WebSocketListener {
             // 开启压缩扩展, 开启 Gzip 压缩
             builder.addInterceptor(new CocosGzipRequestInterceptor());
         }
-        KeyStore keyStore = null;
+        CocosSSLContextCache.Entry sslContext = null;
         if (url.toLowerCase().startsWith("wss://") && !caFilePath.isEmpty()) {
             try {
-                InputStream caInput = null;
-
-                if (caFilePath.startsWith("assets/")) {
-                    caInput = CocosHelper.getActivity().getResources().getAssets().open(caFilePath);
-                } else {
-                    caInput = new FileInputStream(caFilePath);
-                }
-                if (caFilePath.toLowerCase().endsWith(".pem")) {
-                    keyStore = CocosWebSocketUtils.GetPEMKeyStore(caInput);
-                } else {
-                    keyStore = CocosWebSocketUtils.GetCERKeyStore(caInput);
-                }
+                // the CA file is parsed once, later connections share its SSL context
+                sslContext = CocosSSLContextCache.get(caFilePath, "websocket", new CocosSSLContextCache.KeyStoreLoader() {
+                    @Override
+                    public KeyStore load() throws Exception {
+                        InputStream caInput = null;
+
+                        if (caFilePath.startsWith("assets/")) {
+                            caInput = CocosHelper.getActivity().getResources().getAssets().open(caFilePath);
+                        } else {
+                            caInput = new FileInputStream(caFilePath);
+                        }
+                        try {
+                            if (caFilePath.toLowerCase().endsWith(".pem")) {
+                                return CocosWebSocketUtils.GetPEMKeyStore(caInput);
+                            } else {
+                                return CocosWebSocketUtils.GetCERKeyStore(caInput);
+                            }
+                        } finally {
+                            caInput.close();
+                        }
+                    }
+                });
             } catch (Exception e) {
                 e.printStackTrace();
                 String errMsg = e.getMessage();
@@ -209,19 +219,11 @@ public class CocosWebSocket extends WebSocketListener {
         }
         if (url.toLowerCase().startsWith("wss://") || _tcpNoDelay) {
             try {
-                X509TrustManager trustManager =
-                    CocosWebSocketUtils.GetTrustManager(keyStore);
-                SSLContext   sslContext = SSLContext.getInstance("TLS");
-                SecureRandom random;
-                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-                    random = SecureRandom.getInstanceStrong();
-                } else {
-                    random = SecureRandom.getInstance("SHA1PRNG");
+                if (sslContext == null) {
+                    sslContext = CocosSSLContextCache.get(null, null, null);
                 }
-                sslContext.init(null, new TrustManager[] {trustManager}, random);
-                SSLSocketFactory sslSocketFactory = sslContext.getSocketFactory();
                 SSLSocketFactory customSslSocketFactory =
-                    new CocosDelegatingSSLSocketFactory(sslSocketFactory) {
+                    new CocosDelegatingSSLSocketFactory(sslContext.socketFactory) {
                         @Override
                         protected SSLSocket configureSocket(SSLSocket socket)
                             throws          IOException {
@@ -234,8 +236,8 @@ public class CocosWebSocket extends WebSocketListener {
                             return socket;
                         }
                     };
-                builder.sslSocketFactory(customSslSocketFactory, trustManager);
-            } catch (GeneralSecurityException e) {
+                builder.sslSocketFactory(customSslSocketFactory, sslContext.trustManager);
+            } catch (Exception e) {
                 e.printStackTrace();
                 String errMsg = e.getMessage();
                 if (errMsg == null) {
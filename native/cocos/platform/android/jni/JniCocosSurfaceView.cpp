@@ -28,6 +28,7 @@
 #include <android/native_window.h>
 #include <android/native_window_jni.h>
 #include <jni.h>
+#include <cstring>
 #include "application/ApplicationManager.h"
 #include "base/memory/Memory.h"
 #include "engine/EngineEvents.h"
@@ -173,90 +174,51 @@ JNIEXPORT void JNICALL Java_com_cocos_lib_CocosSurfaceView_onSurfaceDestroyedNat
 }
 
 // NOLINTNEXTLINE
-JNIEXPORT void JNICALL
-Java_com_cocos_lib_CocosTouchHandler_handleActionDown(JNIEnv *env, // NOLINT JNI function name
-                                                      jobject obj,
-                                                      jint windowId,
-                                                      jint id,
-                                                      jfloat x,
-                                                      jfloat y) {
-    CC_UNUSED_PARAM(env);
-    CC_UNUSED_PARAM(obj);
-
-    touchEvent.windowId = windowId;
-    touchEvent.type = cc::TouchEvent::Type::BEGAN;
-    touchEvent.touches.emplace_back(x, y, id);
-    cc::events::Touch::broadcast(touchEvent);
-    touchEvent.touches.clear();
-}
-
-// NOLINTNEXTLINE
-JNIEXPORT void JNICALL Java_com_cocos_lib_CocosTouchHandler_handleActionUp(JNIEnv *env, // NOLINT JNI function name
-                                                                           jobject obj,
-                                                                           jint windowId,
-                                                                           jint id,
-                                                                           jfloat x,
-                                                                           jfloat y) {
-    CC_UNUSED_PARAM(env);
-    CC_UNUSED_PARAM(obj);
-
-    touchEvent.windowId = windowId;
-    touchEvent.type = cc::TouchEvent::Type::ENDED;
-    touchEvent.touches.emplace_back(x, y, id);
-    cc::events::Touch::broadcast(touchEvent);
-    touchEvent.touches.clear();
-}
-
-// NOLINTNEXTLINE
-JNIEXPORT void JNICALL Java_com_cocos_lib_CocosTouchHandler_handleActionMove(JNIEnv *env, // NOLINT JNI function name
+JNIEXPORT void JNICALL Java_com_cocos_lib_CocosTouchHandler_handleTouchBatch(JNIEnv *env, // NOLINT JNI function name
                                                                              jobject obj,
                                                                              jint windowId,
-                                                                             jintArray ids,
-                                                                             jfloatArray xs,
-                                                                             jfloatArray ys) {
+                                                                             jobject batch,
+                                                                             jint length) {
     CC_UNUSED_PARAM(obj);
 
-    touchEvent.windowId = windowId;
-    touchEvent.type = cc::TouchEvent::Type::MOVED;
-    int size = env->GetArrayLength(ids);
-    jint id[size];
-    jfloat x[size];
-    jfloat y[size];
-
-    env->GetIntArrayRegion(ids, 0, size, id);
-    env->GetFloatArrayRegion(xs, 0, size, x);
-    env->GetFloatArrayRegion(ys, 0, size, y);
-    for (int i = 0; i < size; i++) {
-        touchEvent.touches.emplace_back(x[i], y[i], id[i]);
+    // Written by CocosTouchHandler in native byte order, per event:
+    // type(int32) pointerCount(int32), then per pointer: id(int32) x(float) y(float).
+    // Extended events carry timestamp(int64) after the header, pressure(float) size(float) after each pointer.
+    constexpr int32_t extendedFlag = 0x100;
+    const auto *data = static_cast<const uint8_t *>(env->GetDirectBufferAddress(batch));
+    if (data == nullptr) {
+        return;
     }
-
-    cc::events::Touch::broadcast(touchEvent);
-    touchEvent.touches.clear();
-}
-
-// NOLINTNEXTLINE
-JNIEXPORT void JNICALL Java_com_cocos_lib_CocosTouchHandler_handleActionCancel(JNIEnv *env, // NOLINT JNI function name
-                                                                               jobject obj,
-                                                                               jint windowId,
-                                                                               jintArray ids,
-                                                                               jfloatArray xs,
-                                                                               jfloatArray ys) {
-    CC_UNUSED_PARAM(obj);
-
+    const uint8_t *end = data + length;
     touchEvent.windowId = windowId;
-    touchEvent.type = cc::TouchEvent::Type::CANCELLED;
-    int size = env->GetArrayLength(ids);
-    jint id[size];
-    jfloat x[size];
-    jfloat y[size];
-
-    env->GetIntArrayRegion(ids, 0, size, id);
-    env->GetFloatArrayRegion(xs, 0, size, x);
-    env->GetFloatArrayRegion(ys, 0, size, y);
-    for (int i = 0; i < size; i++) {
-        touchEvent.touches.emplace_back(x[i], y[i], id[i]);
+    while (data + 2 * sizeof(int32_t) <= end) {
+        int32_t type = 0;
+        int32_t count = 0;
+        memcpy(&type, data, sizeof(type));
+        memcpy(&count, data + sizeof(type), sizeof(count));
+        data += 2 * sizeof(int32_t);
+        bool extended = (type & extendedFlag) != 0;
+        size_t pointerSize = sizeof(int32_t) + (extended ? 4 : 2) * sizeof(float);
+        size_t timestampSize = extended ? sizeof(int64_t) : 0;
+        if (count < 0 || data + timestampSize + count * pointerSize > end) {
+            break;
+        }
+        touchEvent.type = static_cast<cc::TouchEvent::Type>(type & ~extendedFlag);
+        touchEvent.timestamp = 0;
+        if (extended) {
+            memcpy(&touchEvent.timestamp, data, sizeof(int64_t));
+            data += sizeof(int64_t);
+        }
+        for (int32_t i = 0; i < count; i++) {
+            int32_t id = 0;
+            float values[4] = {0, 0, 0, 0}; // x, y, pressure, size
+            memcpy(&id, data, sizeof(id));
+            memcpy(values, data + sizeof(id), pointerSize - sizeof(id));
+            data += pointerSize;
+            touchEvent.touches.emplace_back(values[0], values[1], id, values[2], values[3]);
+        }
+        cc::events::Touch::broadcast(touchEvent);
+        touchEvent.touches.clear();
     }
-    cc::events::Touch::broadcast(touchEvent);
-    touchEvent.touches.clear();
 }
 }
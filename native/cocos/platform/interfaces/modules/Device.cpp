@@ -64,6 +64,21 @@ const IAccelerometer::MotionValue &Device::getDeviceMotionValue() {
     return CC_GET_PLATFORM_INTERFACE(IAccelerometer)->getDeviceMotionValue();
 }
 
+void Device::setMotionSensors(int sensors) {
+    CC_ASSERT(CC_GET_PLATFORM_INTERFACE(IAccelerometer) != nullptr);
+    CC_GET_PLATFORM_INTERFACE(IAccelerometer)->setMotionSensors(sensors);
+}
+
+void Device::setAccelerometerAdaptiveSampling(bool adaptive) {
+    CC_ASSERT(CC_GET_PLATFORM_INTERFACE(IAccelerometer) != nullptr);
+    CC_GET_PLATFORM_INTERFACE(IAccelerometer)->setAccelerometerAdaptiveSampling(adaptive);
+}
+
+void Device::setAccelerometerMaxReportLatency(float latency) {
+    CC_ASSERT(CC_GET_PLATFORM_INTERFACE(IAccelerometer) != nullptr);
+    CC_GET_PLATFORM_INTERFACE(IAccelerometer)->setAccelerometerMaxReportLatency(latency);
+}
+
 IScreen::Orientation Device::getDeviceOrientation() {
     CC_ASSERT(CC_GET_PLATFORM_INTERFACE(IScreen) != nullptr);
     return CC_GET_PLATFORM_INTERFACE(IScreen)->getDeviceOrientation();
@@ -79,6 +79,21 @@ public:
      */
     static const IAccelerometer::MotionValue &getDeviceMotionValue();
 
+    /**
+     *  Chooses the motion sensors, a combination of the IAccelerometer::MOTION_SENSOR_* flags.
+     */
+    static void setMotionSensors(int sensors);
+
+    /**
+     *  Makes the accelerometer follow the frame rate.
+     */
+    static void setAccelerometerAdaptiveSampling(bool adaptive);
+
+    /**
+     *  Sets the time in seconds samples may be batched before being delivered.
+     */
+    static void setAccelerometerMaxReportLatency(float latency);
+
     /**
      *  Gets the orientation of device.
      */
@@ -31,6 +31,14 @@ namespace cc {
 
 class CC_DLL IAccelerometer : public OSInterface {
 public:
+    // Flags of setMotionSensors.
+    static constexpr int MOTION_SENSOR_ACCELEROMETER = 1;
+    static constexpr int MOTION_SENSOR_LINEAR_ACCELERATION = 1 << 1;
+    static constexpr int MOTION_SENSOR_GYROSCOPE = 1 << 2;
+    static constexpr int MOTION_SENSOR_GAME_ROTATION_VECTOR = 1 << 3;
+    static constexpr int MOTION_SENSOR_ROTATION_VECTOR = 1 << 4;
+    static constexpr int MOTION_SENSOR_GRAVITY = 1 << 5;
+
     struct MotionValue {
         float accelerationX = 0.0F;
         float accelerationY = 0.0F;
@@ -43,6 +51,19 @@ public:
         float rotationRateAlpha = 0.0F;
         float rotationRateBeta = 0.0F;
         float rotationRateGamma = 0.0F;
+
+        // Device orientation, all 0 if the platform or the chosen sensors don't provide it.
+        float quaternionX = 0.0F;
+        float quaternionY = 0.0F;
+        float quaternionZ = 0.0F;
+        float quaternionW = 0.0F;
+
+        float gravityX = 0.0F;
+        float gravityY = 0.0F;
+        float gravityZ = 0.0F;
+
+        // Time of the latest sample in nanoseconds, 0 if the platform doesn't report it.
+        int64_t timestamp = 0;
     };
 
     /**
@@ -59,6 +80,24 @@ public:
      *  Gets the motion value of current device.
      */
     virtual const MotionValue &getDeviceMotionValue() = 0;
+
+    /**
+     *  Chooses the sensors registered while the accelerometer is enabled, a combination of
+     *  the MOTION_SENSOR_* flags. Quaternion and gravity stay 0 unless their sensors are chosen.
+     *  Ignored on platforms that register a fixed set.
+     */
+    virtual void setMotionSensors(int /*sensors*/) {}
+
+    /**
+     *  In adaptive mode sensors sample no faster than frames are drawn, the interval becomes
+     *  a lower bound. Ignored on platforms without it.
+     */
+    virtual void setAccelerometerAdaptiveSampling(bool /*adaptive*/) {}
+
+    /**
+     *  Lets the sensor hub batch samples for up to this many seconds, to save battery. 0 disables it.
+     */
+    virtual void setAccelerometerMaxReportLatency(float /*latency*/) {}
 };
 
 } // namespace cc
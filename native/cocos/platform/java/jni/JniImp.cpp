@@ -152,10 +152,46 @@ void setAccelerometerIntervalJNI(float interval) {
     JniHelper::callStaticVoidMethod(JCLS_SENSOR, "setAccelerometerInterval", interval);
 }
 
+void setSensorFrameRateJNI(int frameRate) {
+    JniHelper::callStaticVoidMethod(JCLS_SENSOR, "setFrameRate", frameRate);
+}
+
 float *getDeviceMotionValueJNI() {
     return JniHelper::callStaticFloatArrayMethod(JCLS_SENSOR, "getDeviceMotionValue");
 }
 
+#if CC_PLATFORM == CC_PLATFORM_ANDROID
+const uint8_t *getDeviceMotionSnapshotJNI() {
+    JniMethodInfo methodInfo;
+    const uint8_t *address = nullptr;
+
+    if (JniHelper::getStaticMethodInfo(methodInfo, JCLS_SENSOR, "getDeviceMotionSnapshot", "()Ljava/nio/ByteBuffer;")) {
+        jobject buffer = methodInfo.env->CallStaticObjectMethod(methodInfo.classID, methodInfo.methodID);
+        if (buffer) {
+            // the buffer is held by a static final field, so the address stays valid
+            address = static_cast<const uint8_t *>(methodInfo.env->GetDirectBufferAddress(buffer));
+            ccDeleteLocalRef(methodInfo.env, buffer);
+        }
+        ccDeleteLocalRef(methodInfo.env, methodInfo.classID);
+    }
+
+    return address;
+}
+
+void setMotionSensorsJNI(int sensors) {
+    JniHelper::callStaticVoidMethod(JCLS_SENSOR, "setMotionSensors", sensors);
+}
+
+void setAccelerometerAdaptiveSamplingJNI(bool adaptive) {
+    JniHelper::callStaticVoidMethod(JCLS_SENSOR, "setAdaptiveSampling", adaptive);
+}
+
+void setAccelerometerMaxReportLatencyJNI(float latency) {
+    // seconds like the interval, Java takes microseconds
+    JniHelper::callStaticVoidMethod(JCLS_SENSOR, "setAccelerometerMaxReportLatency", static_cast<int>(latency * 1000000));
+}
+#endif
+
 extern "C" {
 JNIEXPORT void JNICALL JNI_AUDIO(nativeSetAudioVolumeFactor)(JNIEnv * /*env*/, jclass /* thiz*/, jfloat volumeFactor) {
 #if CC_USE_AUDIO
@@ -45,5 +45,12 @@ extern void flushTasksOnGameThreadJNI();
 extern void flushTasksOnGameThreadAtForegroundJNI();
 extern void setAccelerometerEnabledJNI(bool isEnabled);
 extern void setAccelerometerIntervalJNI(float interval);
+extern void setSensorFrameRateJNI(int frameRate);
 extern float *getDeviceMotionValueJNI();
+// Android only, address of the snapshot written by CocosSensorHandler.
+extern const uint8_t *getDeviceMotionSnapshotJNI();
+// Android only.
+extern void setMotionSensorsJNI(int sensors);
+extern void setAccelerometerAdaptiveSamplingJNI(bool adaptive);
+extern void setAccelerometerMaxReportLatencyJNI(float latency);
 extern void finishActivity();
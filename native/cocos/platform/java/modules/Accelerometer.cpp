@@ -26,8 +26,48 @@
 #include "platform/java/modules/Accelerometer.h"
 #include "platform/java/jni/JniImp.h"
 
+#if CC_PLATFORM == CC_PLATFORM_ANDROID
+    #include <algorithm>
+    #include <cstring>
+#endif
+
 namespace cc {
 
+#if CC_PLATFORM == CC_PLATFORM_ANDROID
+namespace {
+// Layout of the snapshot, see CocosSensorHandler.
+constexpr size_t SNAPSHOT_LATEST = 0;
+constexpr size_t SNAPSHOT_HEADER_SIZE = 8;
+constexpr size_t SLOT_SEQUENCE = 0;
+constexpr size_t SLOT_TIMESTAMPS = 8;
+constexpr size_t SLOT_VALUES = 48;
+constexpr size_t SLOT_SIZE = 128;
+constexpr int TIMESTAMP_COUNT = 5;
+constexpr int VALUE_COUNT = 16;
+constexpr int MAX_READ_ATTEMPTS = 4;
+
+// Copy the latest slot, fails only if the sensor thread kept overwriting it.
+bool readMotionSnapshot(const uint8_t *snapshot, int64_t *timestamps, float *values) {
+    const auto *latest = reinterpret_cast<const int32_t *>(snapshot + SNAPSHOT_LATEST);
+    for (int attempt = 0; attempt < MAX_READ_ATTEMPTS; ++attempt) {
+        const uint8_t *slot = snapshot + SNAPSHOT_HEADER_SIZE + (__atomic_load_n(latest, __ATOMIC_ACQUIRE) & 1) * SLOT_SIZE;
+        const auto *sequence = reinterpret_cast<const int32_t *>(slot + SLOT_SEQUENCE);
+        int32_t begin = __atomic_load_n(sequence, __ATOMIC_ACQUIRE);
+        if (begin & 1) {
+            continue;
+        }
+        memcpy(timestamps, slot + SLOT_TIMESTAMPS, TIMESTAMP_COUNT * sizeof(int64_t));
+        memcpy(values, slot + SLOT_VALUES, VALUE_COUNT * sizeof(float));
+        __atomic_thread_fence(__ATOMIC_ACQUIRE);
+        if (__atomic_load_n(sequence, __ATOMIC_RELAXED) == begin) {
+            return true;
+        }
+    }
+    return false;
+}
+} // namespace
+#endif
+
 void Accelerometer::setAccelerometerEnabled(bool isEnabled) {
     setAccelerometerEnabledJNI(isEnabled);
 }
@@ -36,8 +76,66 @@ void Accelerometer::setAccelerometerInterval(float interval) {
     setAccelerometerIntervalJNI(interval);
 }
 
+void Accelerometer::setMotionSensors(int sensors) {
+#if CC_PLATFORM == CC_PLATFORM_ANDROID
+    // the flags are the SENSOR_* flags of CocosSensorHandler
+    setMotionSensorsJNI(sensors);
+#else
+    CC_UNUSED_PARAM(sensors);
+#endif
+}
+
+void Accelerometer::setAccelerometerAdaptiveSampling(bool adaptive) {
+#if CC_PLATFORM == CC_PLATFORM_ANDROID
+    setAccelerometerAdaptiveSamplingJNI(adaptive);
+#else
+    CC_UNUSED_PARAM(adaptive);
+#endif
+}
+
+void Accelerometer::setAccelerometerMaxReportLatency(float latency) {
+#if CC_PLATFORM == CC_PLATFORM_ANDROID
+    setAccelerometerMaxReportLatencyJNI(latency);
+#else
+    CC_UNUSED_PARAM(latency);
+#endif
+}
+
 const Accelerometer::MotionValue &Accelerometer::getDeviceMotionValue() {
     static MotionValue motionValue;
+#if CC_PLATFORM == CC_PLATFORM_ANDROID
+    // read without JNI, keeps the last value if the snapshot was busy
+    static const uint8_t *snapshot = getDeviceMotionSnapshotJNI();
+    if (snapshot) {
+        int64_t timestamps[TIMESTAMP_COUNT];
+        float v[VALUE_COUNT];
+        if (readMotionSnapshot(snapshot, timestamps, v)) {
+            motionValue.accelerationIncludingGravityX = v[0];
+            motionValue.accelerationIncludingGravityY = v[1];
+            motionValue.accelerationIncludingGravityZ = v[2];
+
+            motionValue.accelerationX = v[3];
+            motionValue.accelerationY = v[4];
+            motionValue.accelerationZ = v[5];
+
+            motionValue.rotationRateAlpha = v[6];
+            motionValue.rotationRateBeta = v[7];
+            motionValue.rotationRateGamma = v[8];
+
+            motionValue.quaternionX = v[9];
+            motionValue.quaternionY = v[10];
+            motionValue.quaternionZ = v[11];
+            motionValue.quaternionW = v[12];
+
+            motionValue.gravityX = v[13];
+            motionValue.gravityY = v[14];
+            motionValue.gravityZ = v[15];
+
+            motionValue.timestamp = *std::max_element(timestamps, timestamps + TIMESTAMP_COUNT);
+        }
+        return motionValue;
+    }
+#endif
     float *v = getDeviceMotionValueJNI();
 
     if (v) {
@@ -45,6 +45,12 @@ public:
      *  Gets the motion value of current device.
      */
     const MotionValue &getDeviceMotionValue() override;
+
+    void setMotionSensors(int sensors) override;
+
+    void setAccelerometerAdaptiveSampling(bool adaptive) override;
+
+    void setAccelerometerMaxReportLatency(float latency) override;
 };
 
 } // namespace cc
\ No newline at end of file
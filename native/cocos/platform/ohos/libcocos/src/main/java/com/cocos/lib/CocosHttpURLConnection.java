@@ -31,7 +31,6 @@ import ohos.hiviewdfx.HiLog;
 import ohos.hiviewdfx.HiLogLabel;
 
 import java.io.BufferedInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -61,6 +60,17 @@ public class CocosHttpURLConnection {
     private static final HiLogLabel LABEL = new HiLogLabel(HiLog.LOG_APP, 0, "CocosHttpURLConnection");
     private static final String POST_METHOD = "POST";
     private static final String PUT_METHOD = "PUT";
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    // Reused by every response read on the thread, requests run on a few network threads.
+    private static final ThreadLocal<byte[]> sReadBuffer = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[READ_BUFFER_SIZE];
+        }
+    };
+
+    private static native void nativeOnResponseData(long handle, byte[] data, int len);
 
     @SuppressWarnings("unused")
     static HttpURLConnection createHttpURLConnection(String linkURL) {
@@ -276,8 +286,44 @@ public class CocosHttpURLConnection {
         }
     }
 
+    /**
+     * Stream the response body to native in chunks of the read buffer, {@code handle} is the
+     * native buffer they are appended to. Only one chunk is held on the Java heap at a time.
+     * Returns the length of the body, or -1 if it couldn't be read.
+     */
     @SuppressWarnings("unused")
-    static byte[] getResponseContent(HttpURLConnection http) {
+    static long readResponseContent(HttpURLConnection http, long handle) {
+        InputStream in = openResponseStream(http);
+        if (in == null) {
+            return -1;
+        }
+
+        try {
+            byte[] buffer = sReadBuffer.get();
+            long total = 0;
+            int size = 0;
+            while (size != -1) {
+                // fill the buffer before passing it down, so each JNI call carries a large chunk
+                int len = 0;
+                while (len < buffer.length && (size = in.read(buffer, len, buffer.length - len)) != -1) {
+                    len += size;
+                }
+                if (len > 0) {
+                    nativeOnResponseData(handle, buffer, len);
+                    total += len;
+                }
+            }
+            in.close();
+            return total;
+        } catch (Exception e) {
+            e.printStackTrace();
+            HiLog.error(LABEL, "readResponseContent:" + e.toString());
+        }
+
+        return -1;
+    }
+
+    private static InputStream openResponseStream(HttpURLConnection http) {
         InputStream in;
         try {
             in = http.getInputStream();
@@ -293,26 +339,10 @@ public class CocosHttpURLConnection {
             in = http.getErrorStream();
         } catch (Exception e) {
             e.printStackTrace();
-           HiLog.error(LABEL,  "1 getResponseContent: " + e.toString());
+           HiLog.error(LABEL,  "openResponseStream: " + e.toString());
             return null;
         }
-
-        try {
-            byte[] buffer = new byte[1024];
-            int size = 0;
-            ByteArrayOutputStream bytestream = new ByteArrayOutputStream();
-            while ((size = in.read(buffer, 0, 1024)) != -1) {
-                bytestream.write(buffer, 0, size);
-            }
-            byte retbuffer[] = bytestream.toByteArray();
-            bytestream.close();
-            return retbuffer;
-        } catch (Exception e) {
-            e.printStackTrace();
-           HiLog.error(LABEL,  "2 getResponseContent:" + e.toString());
-        }
-
-        return null;
+        return in;
     }
 
     @SuppressWarnings("unused")
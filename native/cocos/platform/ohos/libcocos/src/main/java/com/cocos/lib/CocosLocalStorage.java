@@ -27,24 +27,45 @@ import ohos.data.DatabaseHelper;
 import ohos.data.rdb.*;
 import ohos.data.resultset.ResultSet;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
 public class CocosLocalStorage {
 
     private static String DATABASE_NAME = "jsb.storage.db";
     private static String TABLE_NAME = "data";
-    private static final int DATABASE_VERSION = 1;
+    // 2 adds the flags column, FLAG_* of the stored value.
+    private static final int DATABASE_VERSION = 2;
+    // The value was set as bytes, it is a BLOB.
+    private static final int FLAG_BINARY = 1;
+    // The stored bytes are deflated.
+    private static final int FLAG_DEFLATE = 1 << 1;
+    // Byte values of at least this many bytes are deflated, 0 disables it.
+    private static int sCompressThreshold = 1024;
 
     private static DatabaseHelper mDatabaseOpenHelper = null;
     private static RdbStore mDatabase = null;
 
+    // Keys in rowid order for getKey and getLength. New keys are appended, removing a key
+    // other than the last one drops it, and it is queried again when needed.
+    private static final ArrayList<String> sKeys = new ArrayList<>();
+    private static boolean sKeysValid = false;
+
     private static RdbOpenCallback rdbOpenCallback = new RdbOpenCallback() {
         @Override
         public void onCreate(RdbStore rdbStore) {
-            rdbStore.executeSql("CREATE TABLE IF NOT EXISTS "+TABLE_NAME+"(key TEXT PRIMARY KEY,value TEXT);");
+            rdbStore.executeSql("CREATE TABLE IF NOT EXISTS "+TABLE_NAME+"(key TEXT PRIMARY KEY,value TEXT,flags INTEGER NOT NULL DEFAULT 0);");
         }
 
         @Override
         public void onUpgrade(RdbStore rdbStore, int i, int i1) {
-
+            if (i < 2) {
+                rdbStore.executeSql("ALTER TABLE " + TABLE_NAME + " ADD COLUMN flags INTEGER NOT NULL DEFAULT 0;");
+            }
         }
     };
 
@@ -55,6 +76,7 @@ public class CocosLocalStorage {
             mDatabaseOpenHelper = new DatabaseHelper(GlobalObject.getAbilitySlice());
             StoreConfig cfg = StoreConfig.newDefaultConfig(DATABASE_NAME);
             mDatabase = mDatabaseOpenHelper.getRdbStore(cfg, DATABASE_VERSION, rdbOpenCallback, null);
+            sKeysValid = false;
             return true;
         }
         return false;
@@ -68,49 +90,161 @@ public class CocosLocalStorage {
         if (mDatabase != null) {
             mDatabaseOpenHelper.deleteRdbStore(DATABASE_NAME);
         }
+        sKeysValid = false;
     }
 
     public static void setItem(String key, String value) {
         ValuesBucket valuesBucket = new ValuesBucket();
         valuesBucket.putString("key", key);
         valuesBucket.putString("value", value);
-        mDatabase.insert(TABLE_NAME, valuesBucket);
+        valuesBucket.putInteger("flags", 0);
+        putValue(key, valuesBucket);
+    }
+
+    /**
+     * Store binary data as a BLOB, deflated if it is large, without encoding it to text.
+     */
+    public static void setItemBytes(String key, byte[] value) {
+        int flags = FLAG_BINARY;
+        if (sCompressThreshold > 0 && value.length >= sCompressThreshold) {
+            byte[] deflated = deflate(value);
+            if (deflated.length < value.length) {
+                value = deflated;
+                flags |= FLAG_DEFLATE;
+            }
+        }
+        ValuesBucket valuesBucket = new ValuesBucket();
+        valuesBucket.putString("key", key);
+        valuesBucket.putByteArray("value", value);
+        valuesBucket.putInteger("flags", flags);
+        putValue(key, valuesBucket);
     }
 
+    // Deflate byte values of at least this many bytes when they are written, 0 disables it.
+    public static void setCompressThreshold(int bytes) {
+        sCompressThreshold = Math.max(0, bytes);
+    }
+
+    private static void putValue(String key, ValuesBucket valuesBucket) {
+        // an existing key fails to insert, it is updated in place and keeps its place
+        if (mDatabase.insert(TABLE_NAME, valuesBucket) != -1) {
+            if (sKeysValid) {
+                sKeys.add(key);
+            }
+        } else {
+            mDatabase.update(valuesBucket, new RdbPredicates(TABLE_NAME).equalTo("key", key));
+        }
+    }
+
+    // null for an item set by setItemBytes
     public static String getItem(String key) {
-        String[] columes = new String[] {"value"};
+        String[] columes = new String[] {"value", "flags"};
         RdbPredicates rdbPredicates = new RdbPredicates(TABLE_NAME).equalTo("key", key);
         ResultSet resultSet = mDatabase.query(rdbPredicates, columes);
-        if(resultSet.goToNextRow()) {
-            return resultSet.getString(0);
+        String value = null;
+        if(resultSet.goToNextRow() && (resultSet.getInt(1) & FLAG_BINARY) == 0) {
+            value = resultSet.getString(0);
         }
-        return null;
+        resultSet.close();
+        return value;
+    }
+
+    // The UTF-8 bytes of an item set by setItem.
+    public static byte[] getItemBytes(String key) {
+        String[] columes = new String[] {"value", "flags"};
+        RdbPredicates rdbPredicates = new RdbPredicates(TABLE_NAME).equalTo("key", key);
+        ResultSet resultSet = mDatabase.query(rdbPredicates, columes);
+        byte[] value = null;
+        if (resultSet.goToNextRow()) {
+            int flags = resultSet.getInt(1);
+            if ((flags & FLAG_BINARY) == 0) {
+                value = resultSet.getString(0).getBytes(StandardCharsets.UTF_8);
+            } else if ((flags & FLAG_DEFLATE) == 0) {
+                value = resultSet.getBlob(0);
+            } else {
+                try {
+                    value = inflate(resultSet.getBlob(0));
+                } catch (DataFormatException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+        resultSet.close();
+        return value;
+    }
+
+    private static byte[] deflate(byte[] bytes) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        deflater.setInput(bytes);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2);
+        byte[] buffer = new byte[16 * 1024];
+        while (!deflater.finished()) {
+            out.write(buffer, 0, deflater.deflate(buffer));
+        }
+        deflater.end();
+        return out.toByteArray();
+    }
+
+    private static byte[] inflate(byte[] bytes) throws DataFormatException {
+        Inflater inflater = new Inflater();
+        inflater.setInput(bytes);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length * 2);
+        byte[] buffer = new byte[16 * 1024];
+        try {
+            while (!inflater.finished()) {
+                int len = inflater.inflate(buffer);
+                if (len == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new DataFormatException("Truncated deflate data");
+                }
+                out.write(buffer, 0, len);
+            }
+        } finally {
+            inflater.end();
+        }
+        return out.toByteArray();
     }
 
     public static void removeItem(String key) {
         RdbPredicates rdbPredicates = new RdbPredicates(TABLE_NAME).equalTo("key", key);
-        mDatabase.delete(rdbPredicates);
+        if (mDatabase.delete(rdbPredicates) > 0 && sKeysValid) {
+            if (key.equals(sKeys.get(sKeys.size() - 1))) {
+                sKeys.remove(sKeys.size() - 1);
+            } else {
+                sKeysValid = false;
+            }
+        }
     }
 
     public static void clear() {
         RdbPredicates rdbPredicates = new RdbPredicates(TABLE_NAME);
         mDatabase.delete(rdbPredicates);
+        sKeys.clear();
+        sKeysValid = true;
+    }
+
+    private static void loadKeys() {
+        if (sKeysValid) return;
+        sKeys.clear();
+        ResultSet result = mDatabase.querySql("SELECT key from " + TABLE_NAME + " ORDER BY rowid ASC", null);
+        int keyIndex = result.getColumnIndexForName("key");
+        while (result.goToNextRow()) {
+            sKeys.add(result.getString(keyIndex));
+        }
+        result.close();
+        sKeysValid = true;
     }
     @SuppressWarnings("unused")
     public static String getKey(int nIndex) {
-
-        ResultSet result = mDatabase.querySql("SELECT key from "+TABLE_NAME + " LIMIT 1 OFFSET " + nIndex, null);
-        if(result.goToNextRow()){
-            return result.getString(result.getColumnIndexForName("key"));
+        loadKeys();
+        if (nIndex < 0 || nIndex >= sKeys.size()) {
+            return null;
         }
-        return null;
+        return sKeys.get(nIndex);
     }
 
     public static int getLength() {
-        ResultSet result = mDatabase.querySql("SELECT count(key) as cnt FROM  "+TABLE_NAME, null);
-        if(result.goToNextRow()) {
-            return result.getInt(result.getColumnIndexForName("cnt"));
-        }
-        return 0;
+        loadKeys();
+        return sKeys.size();
     }
 }
@@ -99,6 +99,44 @@ bool localStorageGetItem(const ccstd::string &key, ccstd::string *outItem) {
     return false;
 }
 
+/** sets binary data as an item in the LS */
+void localStorageSetItemBytes(const ccstd::string &key, const uint8_t *data, size_t length) {
+    CC_ASSERT(gInitialized);
+    JniMethodInfo t;
+
+    if (JniHelper::getStaticMethodInfo(t, JCLS_LOCALSTORAGE, "setItemBytes", "(Ljava/lang/String;[B)V")) {
+        jstring jkey = t.env->NewStringUTF(key.c_str());
+        jbyteArray jdata = t.env->NewByteArray(static_cast<jsize>(length));
+        t.env->SetByteArrayRegion(jdata, 0, static_cast<jsize>(length), reinterpret_cast<const jbyte *>(data));
+        t.env->CallStaticVoidMethod(t.classID, t.methodID, jkey, jdata);
+        ccDeleteLocalRef(t.env, jdata);
+        ccDeleteLocalRef(t.env, jkey);
+        ccDeleteLocalRef(t.env, t.classID);
+    }
+}
+
+/** gets an item as binary data from the LS */
+bool localStorageGetItemBytes(const ccstd::string &key, ccstd::vector<uint8_t> *outData) {
+    CC_ASSERT(gInitialized);
+    JniMethodInfo t;
+
+    if (JniHelper::getStaticMethodInfo(t, JCLS_LOCALSTORAGE, "getItemBytes", "(Ljava/lang/String;)[B")) {
+        jstring jkey = t.env->NewStringUTF(key.c_str());
+        auto *jret = static_cast<jbyteArray>(t.env->CallStaticObjectMethod(t.classID, t.methodID, jkey));
+        bool found = jret != nullptr;
+        if (found) {
+            jsize len = t.env->GetArrayLength(jret);
+            outData->resize(len);
+            t.env->GetByteArrayRegion(jret, 0, len, reinterpret_cast<jbyte *>(outData->data()));
+        }
+        ccDeleteLocalRef(t.env, jret);
+        ccDeleteLocalRef(t.env, jkey);
+        ccDeleteLocalRef(t.env, t.classID);
+        return found;
+    }
+    return false;
+}
+
 /** removes an item from the LS */
 void localStorageRemoveItem(const ccstd::string &key) {
     CC_ASSERT(gInitialized);
@@ -162,6 +162,10 @@ bool localStorageGetItem(const ccstd::string &key, ccstd::string *outItem) {
 
     ok |= sqlite3_bind_text(_stmt_select, 1, key.c_str(), -1, SQLITE_TRANSIENT);
     ok |= sqlite3_step(_stmt_select);
+    // an item set by setItemBytes is a BLOB, it has no string value
+    if (sqlite3_column_type(_stmt_select, 0) == SQLITE_BLOB) {
+        return false;
+    }
     const unsigned char *text = sqlite3_column_text(_stmt_select, 0);
 
     if (ok != SQLITE_OK && ok != SQLITE_DONE && ok != SQLITE_ROW) {
@@ -175,6 +179,42 @@ bool localStorageGetItem(const ccstd::string &key, ccstd::string *outItem) {
     }
 }
 
+/** sets binary data as an item in the LS, the value column takes it as a BLOB */
+void localStorageSetItemBytes(const ccstd::string &key, const uint8_t *data, size_t length) {
+    CC_ASSERT(_initialized);
+    int ok = sqlite3_bind_text(_stmt_update, 1, key.c_str(), -1, SQLITE_TRANSIENT);
+    ok |= sqlite3_bind_blob(_stmt_update, 2, length > 0 ? static_cast<const void *>(data) : "", static_cast<int>(length), SQLITE_TRANSIENT);
+
+    ok |= sqlite3_step(_stmt_update);
+
+    ok |= sqlite3_reset(_stmt_update);
+
+    if (ok != SQLITE_OK && ok != SQLITE_DONE)
+        printf("Error in localStorage.setItemBytes()\n");
+}
+
+/** gets an item as binary data from the LS */
+bool localStorageGetItemBytes(const ccstd::string &key, ccstd::vector<uint8_t> *outData) {
+    CC_ASSERT(_initialized);
+    int ok = sqlite3_reset(_stmt_select);
+
+    ok |= sqlite3_bind_text(_stmt_select, 1, key.c_str(), -1, SQLITE_TRANSIENT);
+    int step = sqlite3_step(_stmt_select);
+    if (step != SQLITE_ROW) {
+        if (step != SQLITE_DONE || ok != SQLITE_OK) {
+            printf("Error in localStorage.getItemBytes()\n");
+        }
+        return false;
+    }
+    if (sqlite3_column_type(_stmt_select, 0) == SQLITE_NULL) {
+        return false;
+    }
+    const auto *data = static_cast<const uint8_t *>(sqlite3_column_blob(_stmt_select, 0));
+    int length = sqlite3_column_bytes(_stmt_select, 0);
+    outData->assign(data, data + length);
+    return true;
+}
+
 /** removes an item from the LS */
 void localStorageRemoveItem(const ccstd::string &key) {
     CC_ASSERT(_initialized);
@@ -30,6 +30,7 @@
 
 #include "base/Macros.h"
 #include "base/std/container/string.h"
+#include "base/std/container/vector.h"
 
 /**
  * @addtogroup storage
@@ -50,6 +51,12 @@ void CC_DLL localStorageSetItem(const ccstd::string &key, const ccstd::string &v
 /** Gets an item from the JS. */
 bool CC_DLL localStorageGetItem(const ccstd::string &key, ccstd::string *outItem);
 
+/** Sets binary data as an item, it is stored as is instead of encoded to a string. */
+void CC_DLL localStorageSetItemBytes(const ccstd::string &key, const uint8_t *data, size_t length);
+
+/** Gets an item as binary data, an item set as a string gives its UTF-8 bytes. */
+bool CC_DLL localStorageGetItemBytes(const ccstd::string &key, ccstd::vector<uint8_t> *outData);
+
 /** Removes an item from the JS. */
 void CC_DLL localStorageRemoveItem(const ccstd::string &key);
 
@@ -1120,6 +1120,10 @@ void AssetsManagerEx::queueDowload() {
         return;
     }
 
+    // Submit the free slots as one batch
+    ccstd::vector<ccstd::string> srcUrls;
+    ccstd::vector<ccstd::string> storagePaths;
+    ccstd::vector<ccstd::string> customIds;
     while (_currConcurrentTask < _maxConcurrentTask && !_queue.empty()) {
         std::string key = _queue.back();
         _queue.pop_back();
@@ -1127,10 +1131,15 @@ void AssetsManagerEx::queueDowload() {
         _currConcurrentTask++;
         DownloadUnit &unit = _downloadUnits[key];
         _fileUtils->createDirectory(basename(unit.storagePath));
-        _downloader->createDownloadTask(unit.srcUrl, unit.storagePath, unit.customId);
+        srcUrls.push_back(unit.srcUrl);
+        storagePaths.push_back(unit.storagePath);
+        customIds.push_back(unit.customId);
 
         _tempManifest->setAssetDownloadState(key, Manifest::DownloadState::DOWNLOADING);
     }
+    if (!srcUrls.empty()) {
+        _downloader->createDownloadTasks(srcUrls, storagePaths, customIds, {}, network::DownloadTask::PRIORITY_NORMAL);
+    }
     if (_percentByFile / 100 > _nextSavePoint) {
         // Save current download manifest information for resuming
         _tempManifest->saveToFile(_tempManifestPath);